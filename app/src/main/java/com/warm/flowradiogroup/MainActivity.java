@@ -27,10 +27,14 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
         bt_delete = (Button) findViewById(R.id.bt_delete);
         bt_add.setOnClickListener(this);
         bt_delete.setOnClickListener(this);
+        radio.setIncrementalLayout(true);
+        flow.setIncrementalLayout(true);
         String[] tags = "一个人的一生,应该是这,样度过的,当他回首往事的时候,他不会,因为虚度年华,而悔恨,也不会因为碌碌无为,而羞耻,《钢铁是怎样炼成的》".split(",");
+        radio.beginBatch();
         for (int i = 0; i < tags.length; i++) {
             radio.addView(buildRadioButton(tags[i]));
         }
+        radio.endBatch();
     }
 
 
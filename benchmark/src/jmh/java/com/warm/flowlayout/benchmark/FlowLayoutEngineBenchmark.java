@@ -0,0 +1,142 @@
+package com.warm.flowlayout.benchmark;
+
+import com.warm.flowlayout.engine.FlowLayoutEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 作者：warm
+ * 时间：2026-10-18
+ * 描述：FlowLayoutEngine的换行计算，覆盖普通流式和固定列数两种模式，九宫格见{@link GridTemplateBenchmark}；
+ * 配合gc profiler可以看到每次计算分配的字节数（gc.alloc.rate.norm）。
+ * 运行：./gradlew :benchmark:jmh
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FlowLayoutEngineBenchmark {
+
+    private static final int WIDTH = 1080;
+    private static final int PADDING = 48;
+    private static final int SPACE_H = 24;
+    private static final int SPACE_V = 24;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int childCount;
+
+    /**
+     * flow：宽高随机的标签；columns：horizontalSize为4
+     */
+    @Param({"flow", "columns"})
+    public String mode;
+
+    @Param({"false", "true"})
+    public boolean margins;
+
+    private FlowLayoutEngine engine;
+    private FlowLayoutEngine balancedEngine;
+    private int[] widths;
+    private int[] heights;
+    private int[] childMargins;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(childCount);
+        widths = new int[childCount];
+        heights = new int[childCount];
+        childMargins = margins ? new int[childCount * 4] : null;
+
+        int columns = "columns".equals(mode) ? 4 : 0;
+        int cellWidth = columns == 0 ? 0 : (WIDTH - 2 * PADDING - (columns - 1) * SPACE_H) / columns;
+
+        for (int i = 0; i < childCount; i++) {
+            int horizontalMargin = 0;
+            if (childMargins != null) {
+                int m = i * 4;
+                childMargins[m] = random.nextInt(16);
+                childMargins[m + 1] = random.nextInt(8);
+                childMargins[m + 2] = random.nextInt(16);
+                childMargins[m + 3] = random.nextInt(8);
+                horizontalMargin = childMargins[m] + childMargins[m + 2];
+            }
+            if (columns == 0) {
+                widths[i] = 80 + random.nextInt(400);
+                heights[i] = 60 + random.nextInt(3) * 20;
+            } else {
+                widths[i] = Math.max(0, cellWidth - horizontalMargin);
+                heights[i] = 96 + random.nextInt(2) * 24;
+            }
+        }
+
+        engine = new FlowLayoutEngine();
+        engine.setSpace(SPACE_H, SPACE_V);
+        engine.setBounds(WIDTH, PADDING, PADDING, PADDING);
+        engine.setColumns(columns);
+        engine.compute(childCount, widths, heights, childMargins);
+
+        balancedEngine = new FlowLayoutEngine();
+        balancedEngine.setSpace(SPACE_H, SPACE_V);
+        balancedEngine.setBounds(WIDTH, PADDING, PADDING, PADDING);
+        balancedEngine.setColumns(columns);
+        balancedEngine.setLineBreakStrategy(FlowLayoutEngine.BREAK_BALANCED);
+        balancedEngine.compute(childCount, widths, heights, childMargins);
+    }
+
+    /**
+     * 一次完整的测量：从第一行开始重新计算所有child
+     */
+    @Benchmark
+    public int fullPass() {
+        engine.compute(childCount, widths, heights, childMargins);
+        return engine.getContentBottom();
+    }
+
+    /**
+     * 均衡换行的完整测量，宽度和child不变时命中缓存，与fullPass对比
+     */
+    @Benchmark
+    public int balancedPass() {
+        balancedEngine.compute(childCount, widths, heights, childMargins);
+        return balancedEngine.getContentBottom();
+    }
+
+    /**
+     * 尾部追加时的增量计算：只重新计算最后一行
+     */
+    @Benchmark
+    public int tailPass() {
+        int resumeLine = engine.lineOf(childCount - 1);
+        engine.begin(resumeLine);
+        for (int i = engine.getLineStart(resumeLine); i < childCount; i++) {
+            if (childMargins == null) {
+                engine.add(i, widths[i], heights[i], 0, 0, 0, 0);
+            } else {
+                int m = i * 4;
+                engine.add(i, widths[i], heights[i], childMargins[m], childMargins[m + 1], childMargins[m + 2], childMargins[m + 3]);
+            }
+        }
+        engine.end();
+        return engine.getContentBottom();
+    }
+
+    /**
+     * 拖动多选时每个ACTION_MOVE的查找：两次二分查找
+     */
+    @Benchmark
+    public int hitTest() {
+        int x = (int) (System.nanoTime() & 1023);
+        int y = (int) (System.nanoTime() % Math.max(1, engine.getContentBottom()));
+        return engine.childIndexAt(x, y);
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.warm.flowlayout.benchmark;
+
+import com.warm.flowlayout.engine.GridTemplate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 作者：warm
+ * 时间：2026-10-18
+ * 描述：宫格模板的格子计算，FlowLayout的九宫格模式每次测量都走GridTemplate#getCells。
+ * 运行：./gradlew :benchmark:jmh
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GridTemplateBenchmark {
+
+    private static final int WIDTH = 1080 - 2 * 48;
+    private static final int SPACE_H = 24;
+    private static final int SPACE_V = 24;
+
+    @Param({"1", "4", "9"})
+    public int childCount;
+
+    /**
+     * nine：九宫格；rows：2+3；hero：大图+3列缩略图
+     */
+    @Param({"nine", "rows", "hero"})
+    public String template;
+
+    private GridTemplate gridTemplate;
+
+    @Setup
+    public void setUp() {
+        if ("rows".equals(template)) {
+            gridTemplate = GridTemplate.rows(2, 3);
+        } else if ("hero".equals(template)) {
+            gridTemplate = GridTemplate.hero(3);
+        } else {
+            gridTemplate = GridTemplate.nine();
+        }
+        gridTemplate.clearCache();
+    }
+
+    /**
+     * 列表滚动时的重新测量：个数、宽度不变，命中模板的缓存
+     */
+    @Benchmark
+    public int cachedCells() {
+        return gridTemplate.getCells(childCount, WIDTH, SPACE_H, SPACE_V).getHeight();
+    }
+
+    /**
+     * 第一次测量：没有缓存，计算所有格子
+     */
+    @Benchmark
+    public int computeCells() {
+        gridTemplate.clearCache();
+        return gridTemplate.getCells(childCount, WIDTH, SPACE_H, SPACE_V).getHeight();
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.warm.flowlayout;
+
+import android.content.Context;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * FlowLayout、FlowRadioGroup的onMeasure、onLayout在动画中每帧都会执行，不能分配任何对象。
+ * 每次测量前让第一个child请求重新布局，宽度缓存不会命中，每次都从第一行重新换行
+ */
+@RunWith(AndroidJUnit4.class)
+public class FlowLayoutAllocationTest {
+
+    private static final int CHILD_COUNT = 200;
+    private static final int WARM_UP = 50;
+    private static final int CYCLES = 100;
+
+    @Test
+    public void flowLayoutDoesNotAllocate() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        FlowLayout layout = new FlowLayout(context);
+        layout.setSpaceH(8);
+        layout.setSpaceV(8);
+        addChildren(layout, context);
+        assertEquals(0, allocationsPerCycles(layout));
+
+        layout.setHorizontalSize(4);
+        assertEquals(0, allocationsPerCycles(layout));
+    }
+
+    @Test
+    public void flowRadioGroupDoesNotAllocate() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        FlowRadioGroup group = new FlowRadioGroup(context);
+        group.setSpaceH(8);
+        group.setSpaceV(8);
+        addChildren(group, context);
+        assertEquals(0, allocationsPerCycles(group));
+    }
+
+    /**
+     * 旋转屏幕、分屏时在两个宽度之间切换，之前宽度的结果直接复用
+     */
+    @Test
+    @SuppressWarnings("deprecation")
+    public void togglingWidthReusesRows() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        FlowLayout layout = new FlowLayout(context);
+        layout.setSpaceH(8);
+        layout.setSpaceV(8);
+        addChildren(layout, context);
+        int narrow = View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY);
+        int wide = View.MeasureSpec.makeMeasureSpec(1920, View.MeasureSpec.EXACTLY);
+        int heightSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+
+        cycle(layout, narrow, heightSpec);
+        View last = layout.getChildAt(CHILD_COUNT - 1);
+        int left = last.getLeft();
+        int top = last.getTop();
+        cycle(layout, wide, heightSpec);
+        cycle(layout, narrow, heightSpec);
+        assertEquals(left, last.getLeft());
+        assertEquals(top, last.getTop());
+
+        for (int i = 0; i < WARM_UP; i++) {
+            cycle(layout, i % 2 == 0 ? wide : narrow, heightSpec);
+        }
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        for (int i = 0; i < CYCLES; i++) {
+            cycle(layout, i % 2 == 0 ? wide : narrow, heightSpec);
+        }
+        Debug.stopAllocCounting();
+        assertEquals(0, Debug.getThreadAllocCount());
+    }
+
+    private static void addChildren(ViewGroup parent, Context context) {
+        for (int i = 0; i < CHILD_COUNT; i++) {
+            View child = new View(context);
+            int width = 60 + (i * 37) % 300;
+            int height = 40 + (i % 3) * 10;
+            parent.addView(child, parent instanceof FlowLayout ? new FlowLayout.LayoutParams(width, height)
+                    : new FlowRadioGroup.LayoutParams(width, height));
+        }
+    }
+
+    /**
+     * 预热之后执行CYCLES次measure、layout，返回分配的对象个数
+     */
+    @SuppressWarnings("deprecation")
+    private static int allocationsPerCycles(ViewGroup parent) {
+        int widthSpec = View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY);
+        int heightSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        for (int i = 0; i < WARM_UP; i++) {
+            rewrap(parent, widthSpec, heightSpec);
+        }
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        for (int i = 0; i < CYCLES; i++) {
+            rewrap(parent, widthSpec, heightSpec);
+        }
+        Debug.stopAllocCounting();
+        return Debug.getThreadAllocCount();
+    }
+
+    /**
+     * 第一个child请求重新布局，所有行都要重新计算
+     */
+    private static void rewrap(ViewGroup parent, int widthSpec, int heightSpec) {
+        parent.getChildAt(0).requestLayout();
+        cycle(parent, widthSpec, heightSpec);
+    }
+
+    private static void cycle(ViewGroup parent, int widthSpec, int heightSpec) {
+        parent.forceLayout();
+        parent.measure(widthSpec, heightSpec);
+        parent.layout(0, 0, parent.getMeasuredWidth(), parent.getMeasuredHeight());
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.warm.flowlayout;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 共享FlowMeasureCache的FlowLayout：内容和设置相同时直接使用缓存的行，设置不同时重新计算
+ */
+@RunWith(AndroidJUnit4.class)
+public class FlowLayoutMeasureCacheTest {
+
+    private static final int CHILD_COUNT = 20;
+    private static final String KEY = "tags";
+
+    @Test
+    public void sameContentHitsCache() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        FlowMeasureCache cache = new FlowMeasureCache(4);
+        FlowLayout first = newLayout(context, cache);
+        FlowLayout second = newLayout(context, cache);
+        int widthSpec = View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY);
+        int heightSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+
+        cycle(first, widthSpec, heightSpec);
+        assertEquals(1, cache.getMissCount());
+        cycle(second, widthSpec, heightSpec);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        assertEquals(first.getMeasuredHeight(), second.getMeasuredHeight());
+        for (int i = 0; i < CHILD_COUNT; i++) {
+            assertEquals(first.getChildAt(i).getLeft(), second.getChildAt(i).getLeft());
+            assertEquals(first.getChildAt(i).getTop(), second.getChildAt(i).getTop());
+        }
+    }
+
+    @Test
+    public void differentSettingsMissCache() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        FlowMeasureCache cache = new FlowMeasureCache(4);
+        int widthSpec = View.MeasureSpec.makeMeasureSpec(1080, View.MeasureSpec.EXACTLY);
+        int heightSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        cycle(newLayout(context, cache), widthSpec, heightSpec);
+
+        FlowLayout columns = newLayout(context, cache);
+        columns.setHorizontalSize(2);
+        cycle(columns, widthSpec, heightSpec);
+        FlowLayout maxLines = newLayout(context, cache);
+        maxLines.setMaxLines(1);
+        cycle(maxLines, widthSpec, heightSpec);
+        FlowLayout fixedHeight = newLayout(context, cache);
+        cycle(fixedHeight, widthSpec, View.MeasureSpec.makeMeasureSpec(400, View.MeasureSpec.EXACTLY));
+
+        assertEquals(0, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+        //两列时第二个child在第二个格子，只显示一行时高度为一行的高度
+        assertEquals((1080 - 8) / 2 + 8, columns.getChildAt(1).getLeft());
+        assertEquals(40, maxLines.getMeasuredHeight());
+        assertEquals(400, fixedHeight.getMeasuredHeight());
+    }
+
+    private static FlowLayout newLayout(Context context, FlowMeasureCache cache) {
+        FlowLayout layout = new FlowLayout(context);
+        layout.setSpaceH(8);
+        layout.setSpaceV(8);
+        for (int i = 0; i < CHILD_COUNT; i++) {
+            layout.addView(new View(context), new ViewGroup.MarginLayoutParams(60 + (i * 37) % 300, 40));
+        }
+        layout.setMeasureCache(cache);
+        layout.setMeasureCacheKey(KEY);
+        return layout;
+    }
+
+    private static void cycle(ViewGroup parent, int widthSpec, int heightSpec) {
+        parent.measure(widthSpec, heightSpec);
+        parent.layout(0, 0, parent.getMeasuredWidth(), parent.getMeasuredHeight());
+    }
+
+}
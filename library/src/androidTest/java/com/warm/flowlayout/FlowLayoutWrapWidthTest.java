@@ -0,0 +1,97 @@
+package com.warm.flowlayout;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 宽度为wrap_content时，父控件先AT_MOST测量，再以得到的宽度EXACTLY测量，两次的结果应该相同
+ */
+@RunWith(AndroidJUnit4.class)
+public class FlowLayoutWrapWidthTest {
+
+    private static final int MAX_WIDTH = 1080;
+    private static final int SPACE = 8;
+
+    @Test
+    public void flowShrinksToWidestLine() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        FlowLayout layout = new FlowLayout(context);
+        layout.setSpaceH(SPACE);
+        addChildren(layout, context, 3);
+
+        layout.measure(atMost(), unspecified());
+        assertEquals(3 * 100 + 2 * SPACE, layout.getMeasuredWidth());
+        assertResolvedPassKeepsLayout(layout);
+    }
+
+    @Test
+    public void columnsFillAvailableWidth() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        FlowLayout layout = new FlowLayout(context);
+        layout.setSpaceH(SPACE);
+        layout.setHorizontalSize(3);
+        addChildren(layout, context, 3);
+
+        layout.measure(atMost(), unspecified());
+        assertEquals(MAX_WIDTH, layout.getMeasuredWidth());
+        assertResolvedPassKeepsLayout(layout);
+    }
+
+    @Test
+    public void radioGroupColumnsFillAvailableWidth() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        FlowRadioGroup group = new FlowRadioGroup(context);
+        group.setSpaceH(SPACE);
+        group.setHorizontalSize(3);
+        addChildren(group, context, 3);
+
+        group.measure(atMost(), unspecified());
+        assertEquals(MAX_WIDTH, group.getMeasuredWidth());
+        assertResolvedPassKeepsLayout(group);
+    }
+
+    /**
+     * 以AT_MOST得到的宽度再EXACTLY测量一次，child的位置不变
+     */
+    private static void assertResolvedPassKeepsLayout(ViewGroup parent) {
+        parent.layout(0, 0, parent.getMeasuredWidth(), parent.getMeasuredHeight());
+        final int count = parent.getChildCount();
+        int[] lefts = new int[count];
+        int[] tops = new int[count];
+        for (int i = 0; i < count; i++) {
+            lefts[i] = parent.getChildAt(i).getLeft();
+            tops[i] = parent.getChildAt(i).getTop();
+        }
+        int width = parent.getMeasuredWidth();
+        parent.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY), unspecified());
+        parent.layout(0, 0, parent.getMeasuredWidth(), parent.getMeasuredHeight());
+        assertEquals(width, parent.getMeasuredWidth());
+        for (int i = 0; i < count; i++) {
+            assertEquals(lefts[i], parent.getChildAt(i).getLeft());
+            assertEquals(tops[i], parent.getChildAt(i).getTop());
+        }
+    }
+
+    private static void addChildren(ViewGroup parent, Context context, int count) {
+        for (int i = 0; i < count; i++) {
+            parent.addView(new View(context), new ViewGroup.MarginLayoutParams(100, 40));
+        }
+    }
+
+    private static int atMost() {
+        return View.MeasureSpec.makeMeasureSpec(MAX_WIDTH, View.MeasureSpec.AT_MOST);
+    }
+
+    private static int unspecified() {
+        return View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+    }
+
+}
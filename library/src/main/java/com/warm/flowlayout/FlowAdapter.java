@@ -0,0 +1,76 @@
+package com.warm.flowlayout;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * 作者：warm
+ * 时间：2026-10-18
+ * 描述：FlowLayout、FlowRadioGroup的数据适配器，数据变化时复用已有的child重新绑定，
+ * 多出来的child放进{@link FlowViewPool}，不需要removeAllViews之后重新创建。
+ * 一个Adapter同一时间只能设置给一个父控件。
+ */
+public abstract class FlowAdapter {
+
+    private FlowAdapterBinder mBinder;
+
+    public abstract int getItemCount();
+
+    public int getItemViewType(int position) {
+        return 0;
+    }
+
+    /**
+     * 创建指定类型的child，不需要添加到parent中
+     */
+    public abstract View onCreateView(ViewGroup parent, int viewType);
+
+    /**
+     * 把position对应的数据绑定到view上，view可能是新创建的，也可能是复用的
+     */
+    public abstract void onBindView(View view, int position);
+
+    public final void notifyDataSetChanged() {
+        if (mBinder != null) {
+            mBinder.onChanged();
+        }
+    }
+
+    public final void notifyItemChanged(int position) {
+        notifyItemRangeChanged(position, 1);
+    }
+
+    public final void notifyItemRangeChanged(int positionStart, int itemCount) {
+        if (mBinder != null) {
+            mBinder.onItemRangeChanged(positionStart, itemCount);
+        }
+    }
+
+    public final void notifyItemInserted(int position) {
+        notifyItemRangeInserted(position, 1);
+    }
+
+    public final void notifyItemRangeInserted(int positionStart, int itemCount) {
+        if (mBinder != null) {
+            mBinder.onItemRangeInserted(positionStart, itemCount);
+        }
+    }
+
+    public final void notifyItemRemoved(int position) {
+        notifyItemRangeRemoved(position, 1);
+    }
+
+    public final void notifyItemRangeRemoved(int positionStart, int itemCount) {
+        if (mBinder != null) {
+            mBinder.onItemRangeRemoved(positionStart, itemCount);
+        }
+    }
+
+    void setBinder(FlowAdapterBinder binder) {
+        if (binder != null && mBinder != null && mBinder != binder) {
+            throw new IllegalStateException("FlowAdapter is already attached to another parent");
+        }
+        mBinder = binder;
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.warm.flowlayout;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * 作者：warm
+ * 时间：2026-10-18
+ * 描述：把FlowAdapter的数据变化同步到父控件的child上，FlowLayout和FlowRadioGroup共用
+ */
+final class FlowAdapterBinder {
+
+    private final ViewGroup mHost;
+
+    private FlowAdapter mAdapter;
+
+    private FlowViewPool mPool = new FlowViewPool();
+
+    FlowAdapterBinder(ViewGroup host) {
+        mHost = host;
+    }
+
+    FlowAdapter getAdapter() {
+        return mAdapter;
+    }
+
+    void setAdapter(FlowAdapter adapter) {
+        if (mAdapter == adapter) {
+            return;
+        }
+        if (mAdapter != null) {
+            for (int i = FlowLayout.contentChildCount(mHost) - 1; i >= 0; i--) {
+                recycle(i);
+            }
+            mAdapter.setBinder(null);
+        }
+        mAdapter = adapter;
+        if (adapter != null) {
+            adapter.setBinder(this);
+            onChanged();
+        }
+    }
+
+    FlowViewPool getPool() {
+        return mPool;
+    }
+
+    void setPool(FlowViewPool pool) {
+        mPool = pool == null ? new FlowViewPool() : pool;
+    }
+
+    /**
+     * 已有的child类型相同时直接重新绑定，否则放回缓存池再取出对应类型的view
+     */
+    void onChanged() {
+        final int newCount = mAdapter.getItemCount();
+        for (int i = FlowLayout.contentChildCount(mHost) - 1; i >= newCount; i--) {
+            recycle(i);
+        }
+        final int reuseCount = FlowLayout.contentChildCount(mHost);
+        for (int i = 0; i < reuseCount; i++) {
+            rebind(i);
+        }
+        for (int i = reuseCount; i < newCount; i++) {
+            mHost.addView(obtain(i), i);
+        }
+    }
+
+    void onItemRangeChanged(int positionStart, int itemCount) {
+        int end = Math.min(positionStart + itemCount, FlowLayout.contentChildCount(mHost));
+        for (int i = positionStart; i < end; i++) {
+            rebind(i);
+        }
+    }
+
+    void onItemRangeInserted(int positionStart, int itemCount) {
+        for (int i = positionStart; i < positionStart + itemCount; i++) {
+            mHost.addView(obtain(i), i);
+        }
+    }
+
+    void onItemRangeRemoved(int positionStart, int itemCount) {
+        int end = Math.min(positionStart + itemCount, FlowLayout.contentChildCount(mHost));
+        for (int i = end - 1; i >= positionStart; i--) {
+            recycle(i);
+        }
+    }
+
+    private void rebind(int position) {
+        View child = mHost.getChildAt(position);
+        int viewType = mAdapter.getItemViewType(position);
+        if (viewTypeOf(child) == viewType) {
+            mAdapter.onBindView(child, position);
+        } else {
+            recycle(position);
+            mHost.addView(obtain(position), position);
+        }
+    }
+
+    private View obtain(int position) {
+        int viewType = mAdapter.getItemViewType(position);
+        View view = mPool.getRecycledView(viewType);
+        if (view == null) {
+            view = mAdapter.onCreateView(mHost, viewType);
+            view.setTag(R.id.flow_view_type, viewType);
+        }
+        mAdapter.onBindView(view, position);
+        return view;
+    }
+
+    private void recycle(int index) {
+        View child = mHost.getChildAt(index);
+        mHost.removeViewAt(index);
+        mPool.putRecycledView(viewTypeOf(child), child);
+    }
+
+    private static int viewTypeOf(View child) {
+        Object viewType = child.getTag(R.id.flow_view_type);
+        return viewType instanceof Integer ? (Integer) viewType : 0;
+    }
+
+}
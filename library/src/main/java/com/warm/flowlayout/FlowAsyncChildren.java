@@ -0,0 +1,226 @@
+package com.warm.flowlayout;
+
+import android.content.Context;
+import android.annotation.TargetApi;
+import android.os.AsyncTask;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 作者：warm
+ * 时间：2026-10-18
+ * 描述：在后台线程创建child，主线程每帧最多用{@link #FRAME_BUDGET_MS}毫秒把创建好的child添加到父控件，
+ * 每批只请求一次布局，已经添加的行先显示出来。多次调用按调用顺序添加。FlowLayout和FlowRadioGroup共用。
+ * 每批在Choreographer的帧回调中添加，下一批在下一帧，不会连续占用主线程；
+ * 从窗口移除时暂停添加，后台继续创建，重新添加到窗口后接着添加剩下的child。
+ */
+final class FlowAsyncChildren {
+
+    /**
+     * 主线程每次添加child的时间上限，留出一帧中measure、layout、draw的时间
+     */
+    private static final long FRAME_BUDGET_MS = 4;
+
+    /**
+     * 没有Choreographer（API 16以下）时两批之间的间隔
+     */
+    private static final long FRAME_DELAY_MS = 16;
+
+    private final ViewGroup mHost;
+
+    private final FlowBatch mBatch;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    private final Executor mExecutor = AsyncTask.THREAD_POOL_EXECUTOR;
+
+    /**
+     * 还没有全部添加的任务，只在主线程访问
+     */
+    private final ArrayDeque<Job> mJobs = new ArrayDeque<>();
+
+    private final AtomicBoolean mAttachScheduled = new AtomicBoolean();
+
+    /**
+     * 从窗口移除后为true，只在主线程访问
+     */
+    private boolean mPaused;
+
+    /**
+     * 在主线程把下一批安排到下一帧；后台线程不能直接使用Choreographer
+     */
+    private final Runnable mScheduleFrame = new Runnable() {
+        @Override
+        public void run() {
+            if (mPaused) {
+                mAttachScheduled.set(false);
+                return;
+            }
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                postFrameCallback();
+            } else {
+                mMainHandler.postDelayed(mAttach, FRAME_DELAY_MS);
+            }
+        }
+    };
+
+    private final Runnable mAttach = new Runnable() {
+        @Override
+        public void run() {
+            attachChunk();
+        }
+    };
+
+    /**
+     * Choreographer.FrameCallback，API 16之后才创建
+     */
+    private Object mFrameCallback;
+
+    FlowAsyncChildren(ViewGroup host, FlowBatch batch) {
+        mHost = host;
+        mBatch = batch;
+    }
+
+    boolean isRunning() {
+        return !mJobs.isEmpty();
+    }
+
+    void start(int count, final FlowChildFactory factory) {
+        if (count <= 0) {
+            return;
+        }
+        final Job job = new Job(count);
+        mJobs.add(job);
+        final Context context = mHost.getContext();
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < job.count && !job.cancelled; i++) {
+                    job.ready.offer(factory.createChild(context, i));
+                    scheduleAttach();
+                }
+            }
+        });
+    }
+
+    /**
+     * 取消所有未完成的任务，已经添加的child保留，后台已经创建的child丢弃
+     */
+    void cancel() {
+        for (Job job : mJobs) {
+            job.cancelled = true;
+        }
+        mJobs.clear();
+        removeCallbacks();
+    }
+
+    /**
+     * 从窗口移除时调用：停止添加，已经创建和之后创建的child等到{@link #resume()}再添加
+     */
+    void pause() {
+        mPaused = true;
+        removeCallbacks();
+    }
+
+    /**
+     * 重新添加到窗口时调用，继续添加暂停期间创建好的child
+     */
+    void resume() {
+        mPaused = false;
+        Job job = mJobs.peek();
+        if (job != null && !job.ready.isEmpty()) {
+            scheduleAttach();
+        }
+    }
+
+    private void removeCallbacks() {
+        mMainHandler.removeCallbacks(mScheduleFrame);
+        mMainHandler.removeCallbacks(mAttach);
+        if (mFrameCallback != null) {
+            removeFrameCallback();
+        }
+        mAttachScheduled.set(false);
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void removeFrameCallback() {
+        Choreographer.getInstance().removeFrameCallback((Choreographer.FrameCallback) mFrameCallback);
+    }
+
+    private void scheduleAttach() {
+        if (mAttachScheduled.compareAndSet(false, true)) {
+            mMainHandler.post(mScheduleFrame);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void postFrameCallback() {
+        if (mFrameCallback == null) {
+            mFrameCallback = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    attachChunk();
+                }
+            };
+        }
+        Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback) mFrameCallback);
+    }
+
+    private void attachChunk() {
+        mAttachScheduled.set(false);
+        final long deadline = SystemClock.uptimeMillis() + FRAME_BUDGET_MS;
+        boolean overBudget = false;
+        mBatch.begin();
+        try {
+            while (!mJobs.isEmpty() && !overBudget) {
+                Job job = mJobs.peek();
+                View child;
+                while (!overBudget && (child = job.ready.poll()) != null) {
+                    mHost.addView(child, FlowLayout.contentChildCount(mHost));
+                    job.attached++;
+                    overBudget = SystemClock.uptimeMillis() >= deadline;
+                }
+                if (job.attached < job.count) {
+                    break;
+                }
+                mJobs.poll();
+            }
+        } finally {
+            mBatch.end();
+        }
+        //超出时间或者下一个任务已经有创建好的child，下一帧继续；之后创建的child由后台线程安排
+        Job next = mJobs.peek();
+        if (next != null && !next.ready.isEmpty()) {
+            scheduleAttach();
+        }
+    }
+
+    private static final class Job {
+
+        final int count;
+
+        /**
+         * 后台线程创建好、还没有添加的child
+         */
+        final ConcurrentLinkedQueue<View> ready = new ConcurrentLinkedQueue<>();
+
+        volatile boolean cancelled;
+
+        int attached;
+
+        Job(int count) {
+            this.count = count;
+        }
+    }
+
+}
@@ -0,0 +1,238 @@
+package com.warm.flowlayout;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.content.res.XmlResourceParser;
+import android.util.AttributeSet;
+
+import java.util.WeakHashMap;
+
+/**
+ * 作者：warm
+ * 时间：2026-10-18
+ * 描述：解析好的FlowLayout属性，按(theme, configuration, xml中的原始值)缓存。
+ * 同一个布局inflate多次时，只有第一次调用obtainStyledAttributes，之后只比较原始值；
+ * 没有设置任何属性时直接使用默认值。configuration变化后@dimen等引用可能指向不同的值，之前的结果全部失效。
+ * 引用了主题属性（?attr/xxx）、或者不是编译后的xml时不缓存，每次重新解析。
+ */
+final class FlowAttributes {
+
+    private static final FlowAttributes DEFAULT = new FlowAttributes();
+
+    /**
+     * 每个主题缓存的属性组合个数，通常一个应用只有几种FlowLayout的写法
+     */
+    private static final int THEME_CACHE_SIZE = 16;
+
+    private static final WeakHashMap<Resources.Theme, ThemeCache> sCache = new WeakHashMap<>();
+
+    /**
+     * 读取原始值时复用，避免每次inflate都分配key；由sCache保护
+     */
+    private static final Key sProbe = new Key();
+
+    int horizontalSize;
+    int spaceH;
+    int spaceV;
+    int maxLines;
+    boolean uniformRowHeight;
+    int lineBreakStrategy;
+
+    private FlowAttributes() {
+    }
+
+    /**
+     * 可以在后台线程调用（AsyncLayoutInflater），返回的对象只读
+     */
+    static FlowAttributes obtain(Context context, AttributeSet attrs) {
+        if (attrs == null) {
+            return DEFAULT;
+        }
+        if (!(attrs instanceof XmlResourceParser)) {
+            return resolve(context, attrs);
+        }
+        Resources.Theme theme = context.getTheme();
+        Configuration config = context.getResources().getConfiguration();
+        synchronized (sCache) {
+            if (!sProbe.read(attrs)) {
+                return resolve(context, attrs);
+            }
+            if (sProbe.isEmpty()) {
+                return DEFAULT;
+            }
+            ThemeCache cache = sCache.get(theme);
+            if (cache == null || !cache.config.equals(config)) {
+                cache = new ThemeCache(config);
+                sCache.put(theme, cache);
+            }
+            FlowAttributes attributes = cache.get(sProbe);
+            if (attributes == null) {
+                attributes = resolve(context, attrs);
+                cache.put(sProbe, attributes);
+            }
+            return attributes;
+        }
+    }
+
+    private static FlowAttributes resolve(Context context, AttributeSet attrs) {
+        FlowAttributes attributes = new FlowAttributes();
+        TypedArray array = context.getTheme().obtainStyledAttributes(attrs, R.styleable.FlowLayout, 0, 0);
+        for (int i = 0; i < array.getIndexCount(); i++) {
+            int item = array.getIndex(i);
+            if (item == R.styleable.FlowLayout_horizontalSize) {
+                attributes.horizontalSize = array.getInt(item, 0);
+            } else if (item == R.styleable.FlowLayout_spaceH) {
+                attributes.spaceH = array.getDimensionPixelSize(item, 0);
+            } else if (item == R.styleable.FlowLayout_spaceV) {
+                attributes.spaceV = array.getDimensionPixelSize(item, 0);
+            } else if (item == R.styleable.FlowLayout_uniformRowHeight) {
+                attributes.uniformRowHeight = array.getBoolean(item, false);
+            } else if (item == R.styleable.FlowLayout_maxLines) {
+                attributes.maxLines = array.getInt(item, 0);
+            } else if (item == R.styleable.FlowLayout_lineBreakStrategy) {
+                attributes.lineBreakStrategy = array.getInt(item, 0);
+            }
+        }
+        array.recycle();
+        return attributes;
+    }
+
+    private static boolean isFlowAttribute(int name) {
+        return name == R.attr.horizontalSize || name == R.attr.spaceH || name == R.attr.spaceV
+                || name == R.attr.maxLines || name == R.attr.uniformRowHeight
+                || name == R.attr.lineBreakStrategy;
+    }
+
+    /**
+     * 一个主题在某个configuration下的结果，最近使用的在前
+     */
+    private static final class ThemeCache {
+
+        final Configuration config;
+
+        private final Key[] mKeys = new Key[THEME_CACHE_SIZE];
+        private final FlowAttributes[] mValues = new FlowAttributes[THEME_CACHE_SIZE];
+        private int mSize;
+
+        ThemeCache(Configuration config) {
+            this.config = new Configuration(config);
+        }
+
+        FlowAttributes get(Key key) {
+            for (int i = 0; i < mSize; i++) {
+                if (mKeys[i].matches(key)) {
+                    FlowAttributes attributes = mValues[i];
+                    moveToFront(i);
+                    return attributes;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * 复制key保存，满了之后替换最久未使用的一项
+         */
+        void put(Key key, FlowAttributes attributes) {
+            int index;
+            if (mSize < THEME_CACHE_SIZE) {
+                index = mSize++;
+                mKeys[index] = new Key();
+            } else {
+                index = mSize - 1;
+            }
+            mKeys[index].set(key);
+            mValues[index] = attributes;
+            moveToFront(index);
+        }
+
+        private void moveToFront(int index) {
+            Key key = mKeys[index];
+            FlowAttributes attributes = mValues[index];
+            System.arraycopy(mKeys, 0, mKeys, 1, index);
+            System.arraycopy(mValues, 0, mValues, 1, index);
+            mKeys[0] = key;
+            mValues[0] = attributes;
+        }
+    }
+
+    /**
+     * FlowLayout相关属性在xml中的原始值和style。引用保存资源id，整数、枚举、布尔保存数值，
+     * 只有尺寸等其余字面值需要读取字符串
+     */
+    private static final class Key {
+
+        private static final int MAX_COUNT = 6;
+
+        private int mStyle;
+        private int mCount;
+        private final int[] mNames = new int[MAX_COUNT];
+        private final int[] mValues = new int[MAX_COUNT];
+        private final boolean[] mReferences = new boolean[MAX_COUNT];
+        private final String[] mStrings = new String[MAX_COUNT];
+
+        /**
+         * @return 是否可以缓存，引用了主题属性时为false
+         */
+        boolean read(AttributeSet attrs) {
+            mStyle = attrs.getStyleAttribute();
+            mCount = 0;
+            for (int i = 0, count = attrs.getAttributeCount(); i < count && mCount < MAX_COUNT; i++) {
+                int name = attrs.getAttributeNameResource(i);
+                if (!isFlowAttribute(name)) {
+                    continue;
+                }
+                int value = attrs.getAttributeResourceValue(i, 0);
+                boolean reference = value != 0;
+                String string = null;
+                if (!reference) {
+                    value = attrs.getAttributeIntValue(i, Integer.MIN_VALUE);
+                    if (value == Integer.MIN_VALUE) {
+                        string = attrs.getAttributeValue(i);
+                        if (string != null && string.startsWith("?")) {
+                            return false;
+                        }
+                    }
+                }
+                mNames[mCount] = name;
+                mValues[mCount] = value;
+                mReferences[mCount] = reference;
+                mStrings[mCount] = string;
+                mCount++;
+            }
+            return true;
+        }
+
+        boolean isEmpty() {
+            return mStyle == 0 && mCount == 0;
+        }
+
+        void set(Key other) {
+            mStyle = other.mStyle;
+            mCount = other.mCount;
+            System.arraycopy(other.mNames, 0, mNames, 0, mCount);
+            System.arraycopy(other.mValues, 0, mValues, 0, mCount);
+            System.arraycopy(other.mReferences, 0, mReferences, 0, mCount);
+            System.arraycopy(other.mStrings, 0, mStrings, 0, mCount);
+        }
+
+        boolean matches(Key other) {
+            if (mStyle != other.mStyle || mCount != other.mCount) {
+                return false;
+            }
+            for (int i = 0; i < mCount; i++) {
+                if (mNames[i] != other.mNames[i] || mValues[i] != other.mValues[i]
+                        || mReferences[i] != other.mReferences[i]) {
+                    return false;
+                }
+                String string = mStrings[i];
+                if (string == null ? other.mStrings[i] != null : !string.equals(other.mStrings[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.warm.flowlayout;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * 作者：warm
+ * 时间：2026-10-18
+ * 描述：批量修改child，期间父控件的requestLayout和用户设置的OnHierarchyChangeListener都被暂停，
+ * 结束时只请求一次布局，暂停的回调按发生的顺序补发。FlowLayout和FlowRadioGroup共用。
+ */
+final class FlowBatch implements ViewGroup.OnHierarchyChangeListener {
+
+    private final ViewGroup mHost;
+
+    /**
+     * 用户设置的OnHierarchyChangeListener
+     */
+    private ViewGroup.OnHierarchyChangeListener mListener;
+
+    private int mDepth;
+
+    /**
+     * 批量修改期间是否有被暂停的requestLayout
+     */
+    private boolean mLayoutRequested;
+
+    /**
+     * 批量修改期间暂停的回调，两个队列一一对应
+     */
+    private final ArrayDeque<View> mPendingChildren = new ArrayDeque<>();
+    private final ArrayDeque<Boolean> mPendingAdded = new ArrayDeque<>();
+
+    FlowBatch(ViewGroup host) {
+        mHost = host;
+    }
+
+    void setListener(ViewGroup.OnHierarchyChangeListener listener) {
+        mListener = listener;
+    }
+
+    void begin() {
+        mDepth++;
+    }
+
+    void end() {
+        if (mDepth == 0) {
+            throw new IllegalStateException("endBatch() without beginBatch()");
+        }
+        mDepth--;
+        if (mDepth > 0) {
+            return;
+        }
+        //逐个取出再回调，回调中再次批量修改时不会重复发送
+        View child;
+        while ((child = mPendingChildren.poll()) != null) {
+            boolean added = mPendingAdded.poll();
+            if (mListener != null) {
+                if (added) {
+                    mListener.onChildViewAdded(mHost, child);
+                } else {
+                    mListener.onChildViewRemoved(mHost, child);
+                }
+            }
+        }
+        if (mLayoutRequested) {
+            mLayoutRequested = false;
+            mHost.requestLayout();
+            mHost.invalidate();
+        }
+    }
+
+    /**
+     * @return 是否暂停这次requestLayout
+     */
+    boolean interceptRequestLayout() {
+        if (mDepth > 0) {
+            mLayoutRequested = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 只替换内容child，FlowLayout的超出提示保持为最后一个child
+     */
+    void setChildren(List<? extends View> children) {
+        begin();
+        mHost.removeViews(0, FlowLayout.contentChildCount(mHost));
+        for (int i = 0, size = children.size(); i < size; i++) {
+            mHost.addView(children.get(i), i);
+        }
+        end();
+    }
+
+    @Override
+    public void onChildViewAdded(View parent, View child) {
+        if (mListener == null) {
+            return;
+        }
+        if (mDepth > 0) {
+            mPendingChildren.add(child);
+            mPendingAdded.add(Boolean.TRUE);
+        } else {
+            mListener.onChildViewAdded(parent, child);
+        }
+    }
+
+    @Override
+    public void onChildViewRemoved(View parent, View child) {
+        if (mListener == null) {
+            return;
+        }
+        if (mDepth > 0) {
+            mPendingChildren.add(child);
+            mPendingAdded.add(Boolean.FALSE);
+        } else {
+            mListener.onChildViewRemoved(parent, child);
+        }
+    }
+
+}
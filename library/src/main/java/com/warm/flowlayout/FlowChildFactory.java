@@ -0,0 +1,18 @@
+package com.warm.flowlayout;
+
+import android.content.Context;
+import android.view.View;
+
+/**
+ * 作者：warm
+ * 时间：2026-10-18
+ * 描述：在后台线程创建child，见{@link FlowLayout#addChildrenAsync(int, FlowChildFactory)}。
+ * 创建的view还没有添加到父控件中，不能访问父控件，也不要在这里修改其他已经显示的view。
+ */
+public interface FlowChildFactory {
+
+    /**
+     * 在后台线程调用，按position从小到大依次调用
+     */
+    View createChild(Context context, int position);
+}
@@ -0,0 +1,223 @@
+package com.warm.flowlayout;
+
+import android.content.Context;
+import android.support.v7.widget.RecyclerView;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.CompoundButton;
+
+/**
+ * 作者：warm
+ * 时间：2026-10-18
+ * 描述：虚拟化的FlowRadioGroup，选中状态保存在group中而不是child上，
+ * 使用FlowLayoutManager只创建屏幕内的选项，几千个选项也不需要几千个RadioButton。
+ * OnCheckedChangeListener的回调时机与RadioGroup相同：选中项发生变化时回调，清空选中时checkedId为-1。
+ */
+public class FlowChoiceGroup extends RecyclerView {
+
+    private ChoiceAdapter mChoiceAdapter;
+
+    private final InnerAdapter mInnerAdapter = new InnerAdapter();
+
+    private int mCheckedPosition = NO_POSITION;
+
+    /**
+     * 绑定数据或者代码设置选中状态时，忽略child的状态回调
+     */
+    private boolean mProtectFromCheckedChange;
+
+    private OnCheckedChangeListener mOnCheckedChangeListener;
+
+    public FlowChoiceGroup(Context context) {
+        this(context, null);
+    }
+
+    public FlowChoiceGroup(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        FlowAttributes attributes = FlowAttributes.obtain(context, attrs);
+        setLayoutManager(new FlowLayoutManager(attributes.spaceH, attributes.spaceV, attributes.horizontalSize));
+        mInnerAdapter.registerAdapterDataObserver(new AdapterDataObserver() {
+            @Override
+            public void onChanged() {
+                //选项变少时，超出范围的选中项不再存在，按清空选中处理
+                if (mCheckedPosition != NO_POSITION && mCheckedPosition >= mInnerAdapter.getItemCount()) {
+                    clearCheck();
+                }
+            }
+        });
+        setAdapter(mInnerAdapter);
+    }
+
+    public ChoiceAdapter getChoiceAdapter() {
+        return mChoiceAdapter;
+    }
+
+    public void setChoiceAdapter(ChoiceAdapter choiceAdapter) {
+        if (mChoiceAdapter != null) {
+            mChoiceAdapter.mGroup = null;
+        }
+        mChoiceAdapter = choiceAdapter;
+        if (choiceAdapter != null) {
+            choiceAdapter.mGroup = this;
+        }
+        mCheckedPosition = NO_POSITION;
+        mInnerAdapter.notifyDataSetChanged();
+    }
+
+    public void setOnCheckedChangeListener(OnCheckedChangeListener listener) {
+        mOnCheckedChangeListener = listener;
+    }
+
+    /**
+     * 与RadioGroup#check相同，id为-1时清空选中
+     */
+    public void check(int id) {
+        checkPosition(id == View.NO_ID || mChoiceAdapter == null ? NO_POSITION : mChoiceAdapter.getPosition(id));
+    }
+
+    public void checkPosition(int position) {
+        if (position == mCheckedPosition) {
+            return;
+        }
+        int oldPosition = mCheckedPosition;
+        mCheckedPosition = position;
+        setCheckedStateForPosition(oldPosition, false);
+        setCheckedStateForPosition(position, true);
+        if (mOnCheckedChangeListener != null) {
+            mOnCheckedChangeListener.onCheckedChanged(this, getCheckedId());
+        }
+    }
+
+    public void clearCheck() {
+        checkPosition(NO_POSITION);
+    }
+
+    public int getCheckedId() {
+        if (mCheckedPosition == NO_POSITION || mChoiceAdapter == null
+                || mCheckedPosition >= mChoiceAdapter.getItemCount()) {
+            return View.NO_ID;
+        }
+        return mChoiceAdapter.getItemId(mCheckedPosition);
+    }
+
+    public int getCheckedPosition() {
+        return mCheckedPosition;
+    }
+
+    /**
+     * 只需要更新屏幕内的child，屏幕外的在绑定时读取group中的状态
+     */
+    private void setCheckedStateForPosition(int position, boolean checked) {
+        if (position == NO_POSITION) {
+            return;
+        }
+        ViewHolder holder = findViewHolderForAdapterPosition(position);
+        if (holder != null) {
+            mProtectFromCheckedChange = true;
+            ((CompoundButton) holder.itemView).setChecked(checked);
+            mProtectFromCheckedChange = false;
+        }
+    }
+
+    public interface OnCheckedChangeListener {
+        void onCheckedChanged(FlowChoiceGroup group, int checkedId);
+    }
+
+    /**
+     * 提供选项的数据，id默认就是position
+     */
+    public abstract static class ChoiceAdapter {
+
+        private FlowChoiceGroup mGroup;
+
+        public abstract int getItemCount();
+
+        public abstract CompoundButton onCreateButton(ViewGroup parent);
+
+        /**
+         * 绑定文字等数据，选中状态由group设置，这里不需要处理
+         */
+        public abstract void onBindButton(CompoundButton button, int position);
+
+        public int getItemId(int position) {
+            return position;
+        }
+
+        /**
+         * getItemId的反向查找
+         */
+        public int getPosition(int id) {
+            return id;
+        }
+
+        public final void notifyDataSetChanged() {
+            if (mGroup != null) {
+                mGroup.mInnerAdapter.notifyDataSetChanged();
+            }
+        }
+
+        public final void notifyItemRangeChanged(int positionStart, int itemCount) {
+            if (mGroup != null) {
+                mGroup.mInnerAdapter.notifyItemRangeChanged(positionStart, itemCount);
+            }
+        }
+
+    }
+
+    private static class ChoiceHolder extends ViewHolder {
+        ChoiceHolder(CompoundButton itemView) {
+            super(itemView);
+        }
+    }
+
+    private class InnerAdapter extends Adapter<ChoiceHolder> implements CompoundButton.OnCheckedChangeListener {
+
+        @Override
+        public ChoiceHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            CompoundButton button = mChoiceAdapter.onCreateButton(parent);
+            button.setOnCheckedChangeListener(this);
+            return new ChoiceHolder(button);
+        }
+
+        @Override
+        public void onBindViewHolder(ChoiceHolder holder, int position) {
+            CompoundButton button = (CompoundButton) holder.itemView;
+            mProtectFromCheckedChange = true;
+            mChoiceAdapter.onBindButton(button, position);
+            button.setChecked(position == mCheckedPosition);
+            mProtectFromCheckedChange = false;
+        }
+
+        @Override
+        public int getItemCount() {
+            return mChoiceAdapter == null ? 0 : mChoiceAdapter.getItemCount();
+        }
+
+        /**
+         * 用户点击child时，按单选规则处理：选中新的一项，已选中的一项不能被取消
+         */
+        @Override
+        public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
+            if (mProtectFromCheckedChange) {
+                return;
+            }
+            View itemView = findContainingItemView(buttonView);
+            if (itemView == null) {
+                return;
+            }
+            int position = getChildAdapterPosition(itemView);
+            if (position == NO_POSITION) {
+                return;
+            }
+            if (isChecked) {
+                checkPosition(position);
+            } else if (position == mCheckedPosition) {
+                mProtectFromCheckedChange = true;
+                buttonView.setChecked(true);
+                mProtectFromCheckedChange = false;
+            }
+        }
+    }
+
+}
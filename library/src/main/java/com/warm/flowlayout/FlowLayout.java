@@ -1,10 +1,20 @@
 package com.warm.flowlayout;
 
 import android.content.Context;
-import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.os.Build;
 import android.util.AttributeSet;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+import android.view.animation.Animation;
+
+import com.warm.flowlayout.engine.FlowLayoutEngine;
+import com.warm.flowlayout.engine.GridTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 作者：warm
@@ -33,26 +43,175 @@ public class FlowLayout extends ViewGroup {
 
     public static final int NINE = -1;
 
+    /**
+     * 换行策略，见{@link #setLineBreakStrategy(int)}
+     */
+    public static final int LINE_BREAK_GREEDY = FlowLayoutEngine.BREAK_GREEDY;
+    public static final int LINE_BREAK_JUSTIFIED = FlowLayoutEngine.BREAK_JUSTIFIED;
+    public static final int LINE_BREAK_BALANCED = FlowLayoutEngine.BREAK_BALANCED;
+
+    /**
+     * 宫格模板，优先于horizontalSize；NINE等同于GridTemplate.nine()
+     */
+    private GridTemplate mGridTemplate;
+
+    /**
+     * 使用宫格模板时本次测量的格子，否则为null
+     */
+    private GridTemplate.Cells mCells;
+
+    /**
+     * 行表：onMeasure时计算，onLayout时直接回放
+     */
+    private final FlowLineTable mLineTable = new FlowLineTable();
+
+    /**
+     * 只有尾部child增删时，是否只重新计算最后受影响的行
+     */
+    private boolean mIncrementalLayout;
+
+    private final FlowAdapterBinder mAdapterBinder = new FlowAdapterBinder(this);
+
+    private FlowMetricsListener mMetricsListener;
+
+    private final FlowBatch mBatch = new FlowBatch(this);
+
+    private final FlowAsyncChildren mAsyncChildren = new FlowAsyncChildren(this, mBatch);
+
+    private final FlowRelayoutAnimator mRelayoutAnimator = new FlowRelayoutAnimator(this);
+
+    /**
+     * 本次onMeasure中实际调用了measure的child个数
+     */
+    private int mMeasuredChildCount;
+
+    /**
+     * 固定列数时所有行等高：只测量第一个child得到行高，之后的child直接使用格子宽度和行高
+     */
+    private boolean mUniformRowHeight;
+
+    /**
+     * 统一的行高，包含margin
+     */
+    private int mRowHeight;
+
+    /**
+     * 最大行数，0表示不限制
+     */
+    private int mMaxLines;
+
+    /**
+     * 超出最大行数时显示在最后一行末尾的提示，比如“+N”
+     */
+    private View mOverflowView;
+
+    private OnOverflowListener mOnOverflowListener;
+
+    /**
+     * 超出最大行数没有显示的child个数，以及提示的位置
+     */
+    private int mHiddenCount;
+    private int mOverflowLeft;
+    private int mOverflowTop;
+
+    /**
+     * 共享的测量缓存和当前内容的key
+     */
+    private FlowMeasureCache mMeasureCache;
+    private Object mMeasureCacheKey;
+
+    /**
+     * 是否只绘制可见的行
+     */
+    private boolean mDrawVisibleLinesOnly;
+
+    /**
+     * 上一次绘制的行，没有可见的行时为-1
+     */
+    private int mFirstDrawnLine = -1;
+    private int mLastDrawnLine = -1;
+
+    /**
+     * 是否有child的z不为0，在layout和添加child时更新，dispatchDraw中不再遍历child
+     */
+    private boolean mHasElevatedChildren;
+
+    private final Rect mVisibleRect = new Rect();
+
+    /**
+     * 已经移除但还在播放退出动画的child，父类在动画结束前继续绘制它们，它们不在行表中
+     */
+    private final ArrayList<View> mDisappearingChildren = new ArrayList<>();
+
+    /**
+     * startViewTransition之后还没有endViewTransition的child个数
+     */
+    private int mTransitioningViewCount;
+
+    /**
+     * 外层滚动时，可见的行变化了才需要重绘
+     */
+    private final ViewTreeObserver.OnScrollChangedListener mScrollChangedListener = new ViewTreeObserver.OnScrollChangedListener() {
+        @Override
+        public void onScrollChanged() {
+            if (updateVisibleLines()) {
+                invalidate();
+            }
+        }
+    };
+
+    /**
+     * 在用户的OnHierarchyChangeListener之前，处理超出提示被直接移除的情况
+     */
+    private final OnHierarchyChangeListener mChildListener = new OnHierarchyChangeListener() {
+        @Override
+        public void onChildViewAdded(View parent, View child) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP && child.getZ() != 0) {
+                mHasElevatedChildren = true;
+            }
+            mBatch.onChildViewAdded(parent, child);
+        }
+
+        @Override
+        public void onChildViewRemoved(View parent, View child) {
+            //removeView、removeAllViews移除了超出提示，之后不再为它预留位置
+            if (child == mOverflowView) {
+                mOverflowView = null;
+                mLineTable.invalidate();
+                dispatchOverflow(0);
+            }
+            if (mDrawVisibleLinesOnly && child.getAnimation() != null) {
+                mDisappearingChildren.add(child);
+            }
+            mBatch.onChildViewRemoved(parent, child);
+        }
+    };
+
     public FlowLayout(Context context) {
         this(context, null);
     }
 
     public FlowLayout(Context context, AttributeSet attrs) {
         super(context, attrs);
-        TypedArray array = context.getTheme().obtainStyledAttributes(attrs, R.styleable.FlowLayout, 0, 0);
-        for (int i = 0; i < array.getIndexCount(); i++) {
-            int item = array.getIndex(i);
-            if (item == R.styleable.FlowLayout_horizontalSize) {
-                mHorizontalSize = array.getInt(item, 0);
-                setHorizontalSize(mHorizontalSize);
-
-            } else if (item == R.styleable.FlowLayout_spaceH) {
-                mSpaceH = array.getDimensionPixelSize(item, 0);
-            } else {
-                mSpaceV = array.getDimensionPixelSize(item, 0);
-            }
+        FlowAttributes attributes = FlowAttributes.obtain(context, attrs);
+        mSpaceH = attributes.spaceH;
+        mSpaceV = attributes.spaceV;
+        mUniformRowHeight = attributes.uniformRowHeight;
+        setHorizontalSize(attributes.horizontalSize);
+        setMaxLines(attributes.maxLines);
+        mLineTable.engine.setLineBreakStrategy(attributes.lineBreakStrategy);
+        super.setOnHierarchyChangeListener(mChildListener);
+    }
+
+    /**
+     * 属于内容的child个数，FlowLayout的超出提示始终是最后一个child，不计算在内
+     */
+    static int contentChildCount(ViewGroup parent) {
+        int count = parent.getChildCount();
+        if (parent instanceof FlowLayout && ((FlowLayout) parent).getOverflowView() != null) {
+            count--;
         }
-        array.recycle();
+        return count;
     }
 
     public int getHorizontalSize() {
@@ -61,15 +220,41 @@ public class FlowLayout extends ViewGroup {
 
     public void setHorizontalSize(int horizontalSize) {
         this.mHorizontalSize = horizontalSize;
-        if (!isNine()) {
-            setRealHorizontalSize(mHorizontalSize);
-        }
+        mLineTable.invalidate();
+        setRealHorizontalSize(isNine() ? 0 : mHorizontalSize);
     }
 
     private boolean isNine(){
         return mHorizontalSize == NINE;
     }
 
+    /**
+     * 九宫格模式下，根据child个数决定列数
+     */
+    static int nineColumns(int count) {
+        return GridTemplate.nineColumns(count);
+    }
+
+    public GridTemplate getGridTemplate() {
+        return mGridTemplate;
+    }
+
+    /**
+     * 设置后按可见child的个数从模板中取出格子，child的宽高固定为格子大小减去margin；
+     * 模板的结果会被缓存，列表中的多个FlowLayout可以共享同一个模板；maxLines不生效。设置为null时恢复horizontalSize
+     */
+    public void setGridTemplate(GridTemplate gridTemplate) {
+        this.mGridTemplate = gridTemplate;
+        mLineTable.invalidate();
+    }
+
+    private GridTemplate activeGridTemplate() {
+        if (mGridTemplate != null) {
+            return mGridTemplate;
+        }
+        return isNine() ? GridTemplate.nine() : null;
+    }
+
     private void setRealHorizontalSize(int realHorizontalSize) {
         this.mRealHorizontalSize = realHorizontalSize;
     }
@@ -80,6 +265,7 @@ public class FlowLayout extends ViewGroup {
 
     public void setSpaceH(int spaceH) {
         this.mSpaceH = spaceH;
+        mLineTable.invalidate();
     }
 
     public int getSpaceV() {
@@ -88,10 +274,310 @@ public class FlowLayout extends ViewGroup {
 
     public void setSpaceV(int spaceV) {
         this.mSpaceV = spaceV;
+        mLineTable.invalidate();
+    }
+
+    public boolean isIncrementalLayout() {
+        return mIncrementalLayout;
+    }
+
+    /**
+     * 开启后，只在尾部添加或删除child时，之前的行直接沿用，只重新计算最后受影响的行；
+     * 九宫格模式下列数依赖child个数，始终完整计算
+     */
+    public void setIncrementalLayout(boolean incrementalLayout) {
+        this.mIncrementalLayout = incrementalLayout;
+        mLineTable.invalidate();
+    }
+
+    public int getMaxLines() {
+        return mMaxLines;
+    }
+
+    /**
+     * 超出的child不会被测量，也不会显示；开启后不再使用增量计算
+     *
+     * @param maxLines 0表示不限制
+     */
+    public void setMaxLines(int maxLines) {
+        this.mMaxLines = maxLines;
+        mLineTable.engine.setMaxLines(maxLines);
+        mLineTable.invalidate();
+    }
+
+    public View getOverflowView() {
+        return mOverflowView;
+    }
+
+    /**
+     * 设置超出最大行数时的提示，会作为最后一个child添加，没有超出时不显示；
+     * 最后一行放不下提示时，会把最后一行末尾的child也隐藏。直接removeView移除提示等同于setOverflowView(null)
+     */
+    public void setOverflowView(View overflowView) {
+        if (mOverflowView == overflowView) {
+            return;
+        }
+        if (mOverflowView != null) {
+            removeView(mOverflowView);
+        }
+        mOverflowView = overflowView;
+        mHiddenCount = 0;
+        if (overflowView != null) {
+            addView(overflowView);
+        }
+    }
+
+    /**
+     * 超出最大行数没有显示的child个数
+     */
+    public int getHiddenCount() {
+        return mHiddenCount;
+    }
+
+    public void setOnOverflowListener(OnOverflowListener listener) {
+        this.mOnOverflowListener = listener;
+    }
+
+    /**
+     * 坐标所在的child，x、y与MotionEvent#getX、getY相同，使用onLayout保存的行表二分查找，
+     * 适合拖动多选时在ACTION_MOVE中调用
+     *
+     * @return 不在任何child上时返回null
+     */
+    public View childAt(int x, int y) {
+        if (mCells != null) {
+            return FlowLineTable.findChildUnder(this, x, y);
+        }
+        return mLineTable.childAt(this, x, y);
+    }
+
+    public boolean isDrawVisibleLinesOnly() {
+        return mDrawVisibleLinesOnly;
+    }
+
+    /**
+     * 开启后只绘制与屏幕可见区域相交的行，适合放在NestedScrollView中、child非常多的情况；
+     * 设置了LayoutTransition、播放布局动画、等待重新布局、有正在退出的child、自定义了绘制顺序
+     * 或者有child设置了elevation、translationZ时仍然绘制所有child，child的translation不能超出自己所在的行
+     */
+    public void setDrawVisibleLinesOnly(boolean drawVisibleLinesOnly) {
+        if (mDrawVisibleLinesOnly == drawVisibleLinesOnly) {
+            return;
+        }
+        mDrawVisibleLinesOnly = drawVisibleLinesOnly;
+        mDisappearingChildren.clear();
+        if (getWindowToken() != null) {
+            if (drawVisibleLinesOnly) {
+                getViewTreeObserver().addOnScrollChangedListener(mScrollChangedListener);
+            } else {
+                getViewTreeObserver().removeOnScrollChangedListener(mScrollChangedListener);
+            }
+        }
+        invalidate();
+    }
+
+    /**
+     * 只重绘child所在的行
+     */
+    public void invalidateLineOf(View child) {
+        final FlowLayoutEngine engine = mLineTable.engine;
+        if (mCells != null) {
+            invalidate();
+            return;
+        }
+        int index = indexOfChild(child);
+        if (index < 0 || index >= mLineTable.childCount || engine.getLineCount() == 0) {
+            return;
+        }
+        int line = engine.lineOf(index);
+        int top = engine.getLineTop(line);
+        invalidate(0, top, getWidth(), top + engine.getLineHeight(line));
+    }
+
+    public int getLineBreakStrategy() {
+        return mLineTable.engine.getLineBreakStrategy();
+    }
+
+    /**
+     * 只对按宽度换行生效：LINE_BREAK_GREEDY放不下就换行；LINE_BREAK_JUSTIFIED每行（最后一行除外）两端对齐；
+     * LINE_BREAK_BALANCED行数不变，使各行宽度尽量接近，结果按宽度缓存。后两种每次都完整计算，不做增量计算
+     */
+    public void setLineBreakStrategy(int lineBreakStrategy) {
+        mLineTable.engine.setLineBreakStrategy(lineBreakStrategy);
+        mLineTable.invalidate();
+        requestLayout();
+    }
+
+    public boolean isUniformRowHeight() {
+        return mUniformRowHeight;
+    }
+
+    /**
+     * 只在设置了horizontalSize时生效，所有格子的高度与第一个child相同
+     */
+    public void setUniformRowHeight(boolean uniformRowHeight) {
+        this.mUniformRowHeight = uniformRowHeight;
+        mLineTable.invalidate();
+    }
+
+    public FlowMeasureCache getMeasureCache() {
+        return mMeasureCache;
+    }
+
+    /**
+     * 列表中的多个FlowLayout可以共享同一个缓存，配合setMeasureCacheKey使用；设置了OverflowView时不使用缓存
+     */
+    public void setMeasureCache(FlowMeasureCache measureCache) {
+        this.mMeasureCache = measureCache;
+        mLineTable.invalidate();
+    }
+
+    public Object getMeasureCacheKey() {
+        return mMeasureCacheKey;
+    }
+
+    /**
+     * 当前内容的key，key相同表示child的个数、大小、visibility都相同，比如标签列表本身；
+     * padding、间隙、列数、最大行数、换行策略等设置不同时不会使用同一个结果。绑定新内容时设置，为null时不使用缓存
+     */
+    public void setMeasureCacheKey(Object measureCacheKey) {
+        this.mMeasureCacheKey = measureCacheKey;
+        mLineTable.invalidate();
+    }
+
+    /**
+     * 每次onMeasure、onLayout之后回调，没有设置时不统计耗时
+     */
+    public void setMetricsListener(FlowMetricsListener metricsListener) {
+        this.mMetricsListener = metricsListener;
+    }
+
+    /**
+     * 开始批量修改child，期间addView、removeView不会触发requestLayout，OnHierarchyChangeListener的回调在endBatch时按顺序补发，
+     * 需要与endBatch成对调用，可以嵌套
+     */
+    public void beginBatch() {
+        mBatch.begin();
+    }
+
+    /**
+     * 结束批量修改，最外层结束时只请求一次布局
+     */
+    public void endBatch() {
+        mBatch.end();
+    }
+
+    /**
+     * 替换所有child，超出提示保留，只触发一次布局
+     */
+    public void setChildren(List<? extends View> children) {
+        mBatch.setChildren(children);
+    }
+
+    /**
+     * 在后台线程用factory创建count个child，创建好的child分批添加到末尾，每帧最多占用主线程几毫秒，
+     * 已经添加的行先显示。需要在主线程调用，从窗口移除时暂停添加，重新添加到窗口后继续
+     */
+    public void addChildrenAsync(int count, FlowChildFactory factory) {
+        mAsyncChildren.start(count, factory);
+    }
+
+    public boolean isAddingChildrenAsync() {
+        return mAsyncChildren.isRunning();
+    }
+
+    /**
+     * 停止异步添加，已经添加的child保留
+     */
+    public void cancelAsyncChildren() {
+        mAsyncChildren.cancel();
+    }
+
+    /**
+     * 下一次布局变化以动画过渡：先调用这个方法，再修改spaceH、spaceV、宽度或者增删child。
+     * 只在开始时测量、布局一次，动画过程中通过translation移动child，不再measure和layout
+     */
+    public void animateNextLayout(long duration) {
+        mRelayoutAnimator.prepare(duration);
+    }
+
+    public boolean isAnimatingLayout() {
+        return mRelayoutAnimator.isRunning();
+    }
+
+    /**
+     * 所有显示的child排成一行、不换行时的宽度，包含padding；使用最近一次测量的child大小，不会重新测量child
+     */
+    public int getMaxIntrinsicWidth() {
+        return mLineTable.engine.getMaxContentWidth() + getPaddingLeft() + getPaddingRight();
+    }
+
+    /**
+     * 最宽的一个child的宽度，包含padding，比它更窄时child会超出边界；使用最近一次测量的child大小
+     */
+    public int getMinIntrinsicWidth() {
+        return mLineTable.engine.getMinContentWidth() + getPaddingLeft() + getPaddingRight();
+    }
+
+    @Override
+    public void requestLayout() {
+        //构造过程中父类可能调用requestLayout，此时mBatch还没有初始化
+        if (mBatch != null && mBatch.interceptRequestLayout()) {
+            return;
+        }
+        super.requestLayout();
+    }
+
+    @Override
+    public void setOnHierarchyChangeListener(OnHierarchyChangeListener listener) {
+        if (mBatch == null) {
+            super.setOnHierarchyChangeListener(listener);
+            return;
+        }
+        mBatch.setListener(listener);
+    }
+
+    public FlowAdapter getAdapter() {
+        return mAdapterBinder.getAdapter();
+    }
+
+    /**
+     * 设置Adapter之后由Adapter管理所有child，数据变化时复用已有child，不要再手动addView
+     */
+    public void setAdapter(FlowAdapter adapter) {
+        mAdapterBinder.setAdapter(adapter);
+    }
+
+    public FlowViewPool getViewPool() {
+        return mAdapterBinder.getPool();
     }
 
+    /**
+     * 多个FlowLayout、FlowRadioGroup可以共享同一个缓存池
+     */
+    public void setViewPool(FlowViewPool pool) {
+        mAdapterBinder.setPool(pool);
+    }
+
+    /**
+     * onMeasure、onLayout在动画中每帧都可能执行，不能分配任何对象（装箱、临时LayoutParams、迭代器），
+     * 数组只在child数量增加时扩容，见FlowLayoutAllocationTest
+     */
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        FlowTrace.beginSection("FlowLayout#onMeasure");
+        final long start = mMetricsListener != null ? System.nanoTime() : 0;
+        mMeasuredChildCount = 0;
+        measureFlow(widthMeasureSpec, heightMeasureSpec);
+        if (mMetricsListener != null) {
+            final int childCount = getChildCount();
+            mMetricsListener.onMeasure(this, childCount, mCells != null ? 0 : mLineTable.engine.getLineCount(),
+                    mMeasuredChildCount, childCount - mMeasuredChildCount, System.nanoTime() - start);
+        }
+        FlowTrace.endSection();
+    }
+
+    private void measureFlow(int widthMeasureSpec, int heightMeasureSpec) {
         //获取宽度
         int widthMode = MeasureSpec.getMode(widthMeasureSpec);
         int widthSize = MeasureSpec.getSize(widthMeasureSpec);
@@ -99,74 +585,280 @@ public class FlowLayout extends ViewGroup {
         int heightMode = MeasureSpec.getMode(heightMeasureSpec);
         int heightSize = MeasureSpec.getSize(heightMeasureSpec);
 
-        int x = getPaddingLeft() + getPaddingRight();
-        int y = getPaddingTop() + getPaddingBottom();
-        int itemMaxHeight = 0;
-        if (isNine()) {
-            switch (getChildCount()) {
-                case 1:
-                    setRealHorizontalSize(1);
-                    break;
-                case 2:
-                case 4:
-                    setRealHorizontalSize(2);
-                    break;
-                default:
-                    setRealHorizontalSize(3);
-                    break;
+        final GridTemplate template = activeGridTemplate();
+        if (template != null) {
+            measureGridTemplate(template, widthMeasureSpec, heightMeasureSpec);
+            return;
+        }
+        mCells = null;
+
+        final FlowLineTable table = mLineTable;
+        final FlowLayoutEngine engine = table.engine;
+        final int childCount = getChildCount();
+        final boolean uniform = mUniformRowHeight && mRealHorizontalSize != 0;
+        engine.setColumns(mRealHorizontalSize);
+
+        final boolean cacheable = mMeasureCache != null && mMeasureCacheKey != null && mOverflowView == null;
+        if (cacheable) {
+            //先按当前状态设置engine，缓存的结果只有在设置完全相同时才能使用
+            table.configure(this, widthMeasureSpec, mSpaceH, mSpaceV);
+            if (measureFromCache(widthMeasureSpec, heightMeasureSpec, uniform)) {
+                return;
             }
         }
 
-        for (int i = 0; i < getChildCount(); i++) {
+        table.beginPass(this, widthMeasureSpec, heightMeasureSpec, mSpaceH, mSpaceV,
+                mIncrementalLayout && mMaxLines == 0, mOverflowView == null);
+        //使用了之前这个宽度的结果时，child按原来的方式测量（通常命中View自身的测量缓存），不再换行计算
+        final boolean restored = table.restored;
+        final int childWidthMeasureSpec = table.childWidthMeasureSpec;
+        final int restoredEnd = restored && engine.getOverflowStart() >= 0 ? engine.getOverflowStart() : childCount;
+        if (table.firstDirtyChild == 0) {
+            mRowHeight = 0;
+        }
+
+        for (int i = table.firstDirtyChild; i < restoredEnd; i++) {
             final View child = getChildAt(i);
-            if (child.getVisibility() != View.GONE) {
-                ViewGroup.LayoutParams lp = child.getLayoutParams();
-
-                int cw, ch, cwMargin = 0, chMargin = 0;
-                if (lp instanceof MarginLayoutParams) {
-                    MarginLayoutParams childLP = (MarginLayoutParams) lp;
-                    /**
-                     * 如果传入widthUsed,当使用wrap_content，会自动适配为最小宽度，会使一行最边缘的控件宽度变为 parent#Width-widthUsed;
-                     * 这个widthUsed和heightUsed,当前横 纵已经使用了长度，一般用于设置权重之后，计算剩余可以摆放的位置，只用传0就可以，
-                     * 可以看{@link android.widget.LinearLayout#measureHorizontal（1018行，1117行）和measureChildBeforeLayout}
-                     */
-                    measureChildWithMargins(child, widthMeasureSpec, 0, heightMeasureSpec, 0);
-                    cwMargin = childLP.leftMargin + childLP.rightMargin;
-                    chMargin = childLP.topMargin + childLP.bottomMargin;
+            if (child.getVisibility() == View.GONE || child == mOverflowView) {
+                if (!restored) {
+                    engine.skip(i);
+                }
+                continue;
+            }
+            ViewGroup.LayoutParams lp = child.getLayoutParams();
+            int line;
+            if (lp instanceof MarginLayoutParams) {
+                MarginLayoutParams childLP = (MarginLayoutParams) lp;
+                /**
+                 * 如果传入widthUsed,当使用wrap_content，会自动适配为最小宽度，会使一行最边缘的控件宽度变为 parent#Width-widthUsed;
+                 * 这个widthUsed和heightUsed,当前横 纵已经使用了长度，一般用于设置权重之后，计算剩余可以摆放的位置，只用传0就可以，
+                 * 可以看{@link android.widget.LinearLayout#measureHorizontal（1018行，1117行）和measureChildBeforeLayout}
+                 */
+                if (uniform && mRowHeight > 0) {
+                    measureUniformChild(child, engine.getCellWidth(), childLP.leftMargin + childLP.rightMargin, childLP.topMargin + childLP.bottomMargin);
+                } else {
+                    measureChildWithMargins(child, childWidthMeasureSpec, 0, heightMeasureSpec, 0);
+                }
+                line = restored ? engine.lineOf(i) : engine.add(i, child.getMeasuredWidth(), child.getMeasuredHeight(),
+                        childLP.leftMargin, childLP.topMargin, childLP.rightMargin, childLP.bottomMargin);
+            } else {
+                if (uniform && mRowHeight > 0) {
+                    measureUniformChild(child, engine.getCellWidth(), 0, 0);
                 } else {
-                    measureChild(child, widthMeasureSpec, heightMeasureSpec);
+                    measureChild(child, childWidthMeasureSpec, heightMeasureSpec);
                 }
+                line = restored ? engine.lineOf(i) : engine.add(i, child.getMeasuredWidth(), child.getMeasuredHeight(), 0, 0, 0, 0);
+            }
+            //超出最大行数，之后的child都不显示，也不需要测量
+            if (line == FlowLayoutEngine.NO_LINE) {
+                break;
+            }
+            if (uniform && mRowHeight == 0) {
+                mRowHeight = engine.getLineHeight(line);
+            }
+        }
 
-                cw = child.getMeasuredWidth() + cwMargin;
-                ch = child.getMeasuredHeight() + chMargin;
+        if (!restored) {
+            engine.end();
+        }
+        measureOverflow(widthMeasureSpec, heightMeasureSpec);
+        table.endPass(this);
+        if (cacheable) {
+            mMeasureCache.put(mMeasureCacheKey, widthMeasureSpec, heightMeasureSpec, uniform, engine);
+        }
 
+        //实际计算得出的宽高，宽度为wrap_content时取最宽的一行，固定列数时占满可用宽度
+        int measureWidth = table.resolveWidth(widthMeasureSpec, contentRight(), getPaddingRight());
+        int measureHeight = heightMode == MeasureSpec.EXACTLY ? heightSize : engine.getContentBottom() + getPaddingBottom();
+        setMeasuredDimension(measureWidth, measureHeight);
+    }
 
-                if (itemMaxHeight < ch) {
-                    if (itemMaxHeight == 0) {
-                        //计算每添加一个子空间时的宽度，如果当前计算的宽度大于了父控件的宽度，这就需要换行
-                        //每一行的高度以当前行最大的item为准
-                        y += ch;
-                    } else {
-                        y += ch - itemMaxHeight;
-                    }
-                    itemMaxHeight = ch;
-                }
-                x += cw;
-                if (x > widthSize) {
-                    itemMaxHeight = ch;
-                    y += itemMaxHeight;
-                    y += mSpaceV;
-                    x = getPaddingLeft() + getPaddingRight();
-                    x += cw;
-                }
-                x += mSpaceH;
+    /**
+     * 命中缓存时直接使用缓存的行，child按缓存的大小测量，不做换行计算
+     *
+     * @return 是否命中
+     */
+    private boolean measureFromCache(int widthMeasureSpec, int heightMeasureSpec, boolean uniform) {
+        final FlowLayoutEngine cached = mMeasureCache.get(mMeasureCacheKey, widthMeasureSpec, heightMeasureSpec, uniform, mLineTable.engine);
+        if (cached == null) {
+            return false;
+        }
+        final int childCount = getChildCount();
+        final int overflowStart = cached.getOverflowStart();
+        final int end = overflowStart < 0 ? cached.getChildEnd() : overflowStart;
+        if (overflowStart < 0 ? end != childCount : end > childCount) {
+            return false;
+        }
+        for (int i = 0; i < end; i++) {
+            if ((getChildAt(i).getVisibility() == GONE) != (cached.getChildWidth(i) == FlowLayoutEngine.GONE)) {
+                return false;
+            }
+        }
+
+        final FlowLineTable table = mLineTable;
+        table.beginPass(this, widthMeasureSpec, heightMeasureSpec, mSpaceH, mSpaceV, false, false);
+        table.engine.copyFrom(cached);
+        for (int i = 0; i < end; i++) {
+            if (cached.getChildWidth(i) == FlowLayoutEngine.GONE) {
+                continue;
+            }
+            View child = getChildAt(i);
+            int horizontalMargin = 0, verticalMargin = 0;
+            ViewGroup.LayoutParams lp = child.getLayoutParams();
+            if (lp instanceof MarginLayoutParams) {
+                MarginLayoutParams childLP = (MarginLayoutParams) lp;
+                horizontalMargin = childLP.leftMargin + childLP.rightMargin;
+                verticalMargin = childLP.topMargin + childLP.bottomMargin;
             }
+            measureChildIfNeeded(child,
+                    MeasureSpec.makeMeasureSpec(Math.max(0, cached.getChildWidth(i) - horizontalMargin), MeasureSpec.EXACTLY),
+                    MeasureSpec.makeMeasureSpec(Math.max(0, cached.getChildHeight(i) - verticalMargin), MeasureSpec.EXACTLY));
         }
+        table.endPass(this);
+        dispatchOverflow(overflowStart < 0 ? 0 : countHidden(overflowStart));
 
-        //实际计算得出的宽高
-        int measureWidth = widthSize;
-        int measureHeight = heightMode == MeasureSpec.EXACTLY ? heightSize : y;
+        int heightSize = MeasureSpec.getSize(heightMeasureSpec);
+        int measureHeight = MeasureSpec.getMode(heightMeasureSpec) == MeasureSpec.EXACTLY ? heightSize
+                : table.engine.getContentBottom() + getPaddingBottom();
+        int measureWidth = table.resolveWidth(widthMeasureSpec, table.engine.getContentRight(), getPaddingRight());
         setMeasuredDimension(measureWidth, measureHeight);
+        return true;
+    }
+
+    /**
+     * 宫格模板：格子由模板按可见child的个数给出，不需要换行计算
+     */
+    private void measureGridTemplate(GridTemplate template, int widthMeasureSpec, int heightMeasureSpec) {
+        final int childCount = getChildCount();
+        int count = 0;
+        for (int i = 0; i < childCount; i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() != GONE && child != mOverflowView) {
+                count++;
+            }
+        }
+        final int widthSize = MeasureSpec.getSize(widthMeasureSpec);
+        final GridTemplate.Cells cells = template.getCells(count, widthSize - getPaddingLeft() - getPaddingRight(), mSpaceH, mSpaceV);
+
+        int cell = 0;
+        for (int i = 0; i < childCount; i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() == GONE || child == mOverflowView) {
+                continue;
+            }
+            int horizontalMargin = 0, verticalMargin = 0;
+            ViewGroup.LayoutParams lp = child.getLayoutParams();
+            if (lp instanceof MarginLayoutParams) {
+                MarginLayoutParams childLP = (MarginLayoutParams) lp;
+                horizontalMargin = childLP.leftMargin + childLP.rightMargin;
+                verticalMargin = childLP.topMargin + childLP.bottomMargin;
+            }
+            int width = cells.getRight(cell) - cells.getLeft(cell) - horizontalMargin;
+            int height = cells.getBottom(cell) - cells.getTop(cell) - verticalMargin;
+            measureChildIfNeeded(child, MeasureSpec.makeMeasureSpec(Math.max(0, width), MeasureSpec.EXACTLY),
+                    MeasureSpec.makeMeasureSpec(Math.max(0, height), MeasureSpec.EXACTLY));
+            cell++;
+        }
+        mCells = cells;
+        //行表与当前child不再对应，切换回换行模式时完整计算
+        mLineTable.invalidate();
+        dispatchOverflow(0);
+
+        int heightSize = MeasureSpec.getSize(heightMeasureSpec);
+        int measureHeight = MeasureSpec.getMode(heightMeasureSpec) == MeasureSpec.EXACTLY ? heightSize
+                : getPaddingTop() + cells.getHeight() + getPaddingBottom();
+        setMeasuredDimension(widthSize, measureHeight);
+    }
+
+    /**
+     * 超出最大行数时，先按隐藏的个数更新提示再测量，然后在最后一行末尾给提示留出位置
+     */
+    private void measureOverflow(int widthMeasureSpec, int heightMeasureSpec) {
+        final FlowLayoutEngine engine = mLineTable.engine;
+        int overflowStart = engine.getOverflowStart();
+        if (overflowStart < 0) {
+            dispatchOverflow(0);
+            return;
+        }
+        dispatchOverflow(countHidden(overflowStart));
+        if (mOverflowView == null || mOverflowView.getVisibility() == GONE) {
+            return;
+        }
+        measureOverflowView(widthMeasureSpec, heightMeasureSpec);
+
+        int leftMargin = 0, topMargin = 0, horizontalMargin = 0, verticalMargin = 0;
+        ViewGroup.LayoutParams lp = mOverflowView.getLayoutParams();
+        if (lp instanceof MarginLayoutParams) {
+            MarginLayoutParams overflowLP = (MarginLayoutParams) lp;
+            leftMargin = overflowLP.leftMargin;
+            topMargin = overflowLP.topMargin;
+            horizontalMargin = overflowLP.leftMargin + overflowLP.rightMargin;
+            verticalMargin = overflowLP.topMargin + overflowLP.bottomMargin;
+        }
+        overflowStart = engine.reserveOverflow(mOverflowView.getMeasuredWidth() + horizontalMargin,
+                mOverflowView.getMeasuredHeight() + verticalMargin);
+        //为了放下提示隐藏了更多的child，个数变化后提示的宽度可能也会变化，重新测量一次
+        int hiddenCount = countHidden(overflowStart);
+        if (hiddenCount != mHiddenCount) {
+            dispatchOverflow(hiddenCount);
+            measureOverflowView(widthMeasureSpec, heightMeasureSpec);
+        }
+        mOverflowLeft = engine.getOverflowLeft() + leftMargin;
+        mOverflowTop = engine.getOverflowTop() + topMargin;
+    }
+
+    /**
+     * 内容最右边的位置，包括显示出来的超出提示
+     */
+    private int contentRight() {
+        int right = mLineTable.engine.getContentRight();
+        if (mOverflowView != null && mOverflowView.getVisibility() != GONE && mHiddenCount > 0) {
+            ViewGroup.LayoutParams lp = mOverflowView.getLayoutParams();
+            int rightMargin = lp instanceof MarginLayoutParams ? ((MarginLayoutParams) lp).rightMargin : 0;
+            right = Math.max(right, mOverflowLeft + mOverflowView.getMeasuredWidth() + rightMargin);
+        }
+        return right;
+    }
+
+    private void measureOverflowView(int widthMeasureSpec, int heightMeasureSpec) {
+        if (mOverflowView.getLayoutParams() instanceof MarginLayoutParams) {
+            measureChildWithMargins(mOverflowView, widthMeasureSpec, 0, heightMeasureSpec, 0);
+        } else {
+            measureChild(mOverflowView, widthMeasureSpec, heightMeasureSpec);
+        }
+    }
+
+    /**
+     * from及之后不显示的child个数，只判断visibility，不测量
+     */
+    private int countHidden(int from) {
+        int count = 0;
+        for (int i = from, childCount = getChildCount(); i < childCount; i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() != GONE && child != mOverflowView) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void dispatchOverflow(int hiddenCount) {
+        if (mHiddenCount == hiddenCount) {
+            return;
+        }
+        mHiddenCount = hiddenCount;
+        if (mOnOverflowListener != null) {
+            mOnOverflowListener.onOverflowChanged(this, hiddenCount);
+        }
+    }
+
+    /**
+     * 统一行高时，child直接使用格子宽度和第一个child的高度，不再根据内容测量高度
+     */
+    private void measureUniformChild(View child, int cellWidth, int horizontalMargin, int verticalMargin) {
+        int childWidthMeasureSpec = MeasureSpec.makeMeasureSpec(Math.max(0, cellWidth - horizontalMargin), MeasureSpec.EXACTLY);
+        int childHeightMeasureSpec = MeasureSpec.makeMeasureSpec(Math.max(0, mRowHeight - verticalMargin), MeasureSpec.EXACTLY);
+        measureChildIfNeeded(child, childWidthMeasureSpec, childHeightMeasureSpec);
     }
 
     @Override
@@ -180,17 +872,6 @@ public class FlowLayout extends ViewGroup {
 
         if (mRealHorizontalSize != 0) {
             itemWidth = (MeasureSpec.getSize(parentWidthMeasureSpec) - (getPaddingLeft() + getPaddingRight()) - (mRealHorizontalSize - 1) * mSpaceH) / mRealHorizontalSize - (lp.leftMargin + lp.rightMargin);
-            if (isNine()) {
-                switch (getChildCount()) {
-                    case 1:
-                        itemHeight = itemWidth / 2;
-                        break;
-
-                    default:
-                        itemHeight = itemWidth;
-                        break;
-                }
-            }
         }
 
         childWidthMeasureSpec = getChildMeasureSpec(parentWidthMeasureSpec,
@@ -199,7 +880,7 @@ public class FlowLayout extends ViewGroup {
         childHeightMeasureSpec = getChildMeasureSpec(parentHeightMeasureSpec,
                 getPaddingTop() + getPaddingBottom() + lp.topMargin + lp.bottomMargin
                         + heightUsed, itemHeight);
-        child.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+        measureChildIfNeeded(child, childWidthMeasureSpec, childHeightMeasureSpec);
     }
 
     @Override
@@ -212,18 +893,7 @@ public class FlowLayout extends ViewGroup {
         int childHeightMeasureSpec;
 
         if (mRealHorizontalSize != 0) {
-            itemWidth = (MeasureSpec.getSize(parentWidthMeasureSpec) - (getPaddingLeft() + getPaddingRight()) - (mRealHorizontalSize - 1) * mSpaceH) / mHorizontalSize;
-            if (isNine()) {
-                switch (getChildCount()) {
-                    case 1:
-                        itemHeight = itemWidth / 2;
-                        break;
-
-                    default:
-                        itemHeight = itemWidth;
-                        break;
-                }
-            }
+            itemWidth = (MeasureSpec.getSize(parentWidthMeasureSpec) - (getPaddingLeft() + getPaddingRight()) - (mRealHorizontalSize - 1) * mSpaceH) / mRealHorizontalSize;
         }
         childWidthMeasureSpec = getChildMeasureSpec(parentWidthMeasureSpec,
                 getPaddingLeft() + getPaddingRight(), itemWidth);
@@ -231,77 +901,270 @@ public class FlowLayout extends ViewGroup {
         childHeightMeasureSpec = getChildMeasureSpec(parentHeightMeasureSpec,
                 getPaddingTop() + getPaddingBottom(), itemHeight);
 
+        measureChildIfNeeded(child, childWidthMeasureSpec, childHeightMeasureSpec);
+    }
+
+    /**
+     * 计算出的MeasureSpec与上次相同，LayoutParams未被替换，child也没有requestLayout时，沿用上次的测量结果
+     */
+    private void measureChildIfNeeded(View child, int childWidthMeasureSpec, int childHeightMeasureSpec) {
+        ViewGroup.LayoutParams lp = child.getLayoutParams();
+        if (!(lp instanceof LayoutParams)) {
+            child.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+            mMeasuredChildCount++;
+            return;
+        }
+        LayoutParams flowLP = (LayoutParams) lp;
+        if (flowLP.mMeasured && !child.isLayoutRequested()
+                && flowLP.mWidthMeasureSpec == childWidthMeasureSpec
+                && flowLP.mHeightMeasureSpec == childHeightMeasureSpec) {
+            return;
+        }
         child.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+        mMeasuredChildCount++;
+        flowLP.mWidthMeasureSpec = childWidthMeasureSpec;
+        flowLP.mHeightMeasureSpec = childHeightMeasureSpec;
+        flowLP.mMeasured = true;
     }
 
     @Override
     protected void onLayout(boolean changed, int l, int t, int r, int b) {
-        int measureWidth = getMeasuredWidth();
-        int left = getPaddingLeft();
-        int top = getPaddingTop();
-        int itemMaxHeight = 0;
+        FlowTrace.beginSection("FlowLayout#onLayout");
+        final long start = mMetricsListener != null ? System.nanoTime() : 0;
+        final int layoutStart = Math.min(mLineTable.layoutStart, mLineTable.childCount);
+        layoutFlow();
+        mLineTable.layoutDone();
+        mHasElevatedChildren = hasElevatedChildren();
+        mRelayoutAnimator.onLayout();
+        if (mMetricsListener != null) {
+            mMetricsListener.onLayout(this, getChildCount(), mCells != null ? 0 : mLineTable.engine.getLineCount(),
+                    mCells != null ? getChildCount() : Math.max(0, Math.min(getChildCount(), mLineTable.childCount) - layoutStart), System.nanoTime() - start);
+        }
+        FlowTrace.endSection();
+    }
 
-        int childCount = getChildCount();
-        for (int i = 0; i < childCount; i++) {
+    private void layoutFlow() {
+        if (mCells != null) {
+            layoutGridTemplate();
+            return;
+        }
+        //位置已经在onMeasure中计算好，这里只做回放，沿用的行不需要重新layout
+        final FlowLineTable table = mLineTable;
+        int childCount = Math.min(getChildCount(), table.childCount);
+        int overflowStart = table.engine.getOverflowStart();
+        int visibleCount = overflowStart < 0 ? childCount : Math.min(overflowStart, childCount);
+        for (int i = table.layoutStart; i < visibleCount; i++) {
             View child = getChildAt(i);
-            if (child.getVisibility() != GONE) {
-                //判断当前行最后一个left+child.getMeasuredWidth()，是否大于父控件的宽度，如果大于换行
-
-                ViewGroup.LayoutParams lp = child.getLayoutParams();
+            if (child.getVisibility() != GONE && child != mOverflowView) {
+                int cl = table.engine.getChildLeft(i);
+                int ct = table.engine.getChildTop(i);
+                child.layout(cl, ct, cl + child.getMeasuredWidth(), ct + child.getMeasuredHeight());
+            }
+        }
+        //超出最大行数的child没有测量，布局为空区域，不绘制也不响应触摸
+        for (int i = visibleCount; i < childCount; i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() != GONE && child != mOverflowView) {
+                child.layout(0, 0, 0, 0);
+            }
+        }
+        if (mOverflowView != null && mOverflowView.getVisibility() != GONE) {
+            if (mHiddenCount > 0) {
+                mOverflowView.layout(mOverflowLeft, mOverflowTop,
+                        mOverflowLeft + mOverflowView.getMeasuredWidth(), mOverflowTop + mOverflowView.getMeasuredHeight());
+            } else {
+                mOverflowView.layout(0, 0, 0, 0);
+            }
+        }
+    }
 
-                int leftMargin = 0, topMargin = 0, rightMargin = 0, bottomMargin = 0;
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mAsyncChildren.resume();
+        if (mDrawVisibleLinesOnly) {
+            getViewTreeObserver().addOnScrollChangedListener(mScrollChangedListener);
+        }
+    }
 
-                if (lp instanceof MarginLayoutParams) {
-                    MarginLayoutParams childLP = (MarginLayoutParams) lp;
-                    leftMargin = childLP.leftMargin;
-                    topMargin = childLP.topMargin;
-                    rightMargin = childLP.rightMargin;
-                    bottomMargin = childLP.bottomMargin;
-                }
-                int cl, ct, cr, cb;
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mRelayoutAnimator.cancel();
+        //不再显示时暂停添加，重新添加到窗口后继续；不再需要时调用cancelAsyncChildren
+        mAsyncChildren.pause();
+        if (mDrawVisibleLinesOnly) {
+            getViewTreeObserver().removeOnScrollChangedListener(mScrollChangedListener);
+        }
+    }
 
-                cl = left + leftMargin;
-                ct = top + topMargin;
-                cr = cl + child.getMeasuredWidth();
-                cb = ct + child.getMeasuredHeight();
+    /**
+     * 硬件加速时canvas的clip是整个控件，所以按屏幕上的可见区域决定绘制哪些行，
+     * 行表中每行的child是连续的，只需要遍历可见行的child
+     */
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        if (!mDrawVisibleLinesOnly || mCells != null || isLayoutRequested() || getLayoutTransition() != null
+                || mRelayoutAnimator.isRunning() || !isDrawnInIndexOrder() || hasDisappearingChildren()) {
+            super.dispatchDraw(canvas);
+            return;
+        }
+        updateVisibleLines();
+        if (mFirstDrawnLine < 0) {
+            return;
+        }
+        final FlowLayoutEngine engine = mLineTable.engine;
+        int end = Math.min(getChildCount(), mLineTable.childCount);
+        if (engine.getOverflowStart() >= 0) {
+            end = Math.min(end, engine.getOverflowStart());
+        }
+        if (mLastDrawnLine + 1 < engine.getLineCount()) {
+            end = Math.min(end, engine.getLineStart(mLastDrawnLine + 1));
+        }
 
-                int ch = child.getMeasuredHeight() + topMargin + bottomMargin;
+        final boolean clipToPadding = Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP || getClipToPadding();
+        int saveCount = 0;
+        if (clipToPadding) {
+            saveCount = canvas.save();
+            canvas.clipRect(getScrollX() + getPaddingLeft(), getScrollY() + getPaddingTop(),
+                    getScrollX() + getWidth() - getPaddingRight(), getScrollY() + getHeight() - getPaddingBottom());
+        }
+        final long drawingTime = getDrawingTime();
+        for (int i = engine.getLineStart(mFirstDrawnLine); i < end; i++) {
+            View child = getChildAt(i);
+            if (child != mOverflowView && (child.getVisibility() == VISIBLE || child.getAnimation() != null)) {
+                drawChild(canvas, child, drawingTime);
+            }
+        }
+        if (mOverflowView != null && mHiddenCount > 0 && mLastDrawnLine == engine.getLineCount() - 1
+                && mOverflowView.getVisibility() == VISIBLE) {
+            drawChild(canvas, mOverflowView, drawingTime);
+        }
+        if (clipToPadding) {
+            canvas.restoreToCount(saveCount);
+        }
+    }
 
-                if (itemMaxHeight < ch) {
-                    itemMaxHeight = ch;
-                }
+    /**
+     * 父类是否按child的下标顺序绘制：自定义了绘制顺序，或者有child的z不为0时，父类会调整绘制顺序。
+     * 只在layout之后修改child的z（比如按下时的StateListAnimator）时，到下一次layout才会更新；
+     * child之间互不重叠，这期间的绘制顺序只影响阴影的先后
+     */
+    private boolean isDrawnInIndexOrder() {
+        return !isChildrenDrawingOrderEnabled() && !mHasElevatedChildren;
+    }
 
-                if (cr + rightMargin > measureWidth - getPaddingRight()) {
-                    //行数++,+纵向间隙，left恢复为原来值
-                    left = getPaddingLeft();
+    private boolean hasElevatedChildren() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+            return false;
+        }
+        for (int i = 0, count = getChildCount(); i < count; i++) {
+            if (getChildAt(i).getZ() != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-                    top += itemMaxHeight;
-                    top += mSpaceV;
+    /**
+     * 是否有已经移除、还在播放退出动画或者通过startViewTransition保留的child
+     */
+    private boolean hasDisappearingChildren() {
+        for (int i = mDisappearingChildren.size() - 1; i >= 0; i--) {
+            Animation animation = mDisappearingChildren.get(i).getAnimation();
+            if (animation == null || animation.hasEnded()) {
+                mDisappearingChildren.remove(i);
+            }
+        }
+        return !mDisappearingChildren.isEmpty() || mTransitioningViewCount > 0;
+    }
 
-                    itemMaxHeight = ch;
+    @Override
+    public void startViewTransition(View view) {
+        super.startViewTransition(view);
+        if (view.getParent() == this) {
+            mTransitioningViewCount++;
+        }
+    }
 
-                    cl = left + leftMargin;
-                    ct = top + topMargin;
-                    cr = cl + child.getMeasuredWidth();
-                    cb = ct + child.getMeasuredHeight();
-                }
+    @Override
+    public void endViewTransition(View view) {
+        super.endViewTransition(view);
+        if (mTransitioningViewCount > 0) {
+            mTransitioningViewCount--;
+        }
+    }
 
-                child.layout(cl, ct, cr, cb);
+    /**
+     * 根据屏幕上的可见区域更新需要绘制的行
+     *
+     * @return 可见的行是否发生变化
+     */
+    private boolean updateVisibleLines() {
+        final FlowLayoutEngine engine = mLineTable.engine;
+        int first = -1;
+        int last = -1;
+        if (engine.getLineCount() > 0 && getLocalVisibleRect(mVisibleRect)) {
+            first = engine.getLineForVertical(mVisibleRect.top + getScrollY());
+            last = engine.getLineForVertical(mVisibleRect.bottom + getScrollY());
+        }
+        boolean changed = first != mFirstDrawnLine || last != mLastDrawnLine;
+        mFirstDrawnLine = first;
+        mLastDrawnLine = last;
+        return changed;
+    }
 
-                left = cr + rightMargin;
-                left += mSpaceH;
+    private void layoutGridTemplate() {
+        final GridTemplate.Cells cells = mCells;
+        int cell = 0;
+        for (int i = 0, childCount = getChildCount(); i < childCount; i++) {
+            View child = getChildAt(i);
+            if (child.getVisibility() == GONE) {
+                continue;
+            }
+            if (child == mOverflowView || cell >= cells.getCount()) {
+                child.layout(0, 0, 0, 0);
+                continue;
+            }
+            int leftMargin = 0, topMargin = 0;
+            ViewGroup.LayoutParams lp = child.getLayoutParams();
+            if (lp instanceof MarginLayoutParams) {
+                leftMargin = ((MarginLayoutParams) lp).leftMargin;
+                topMargin = ((MarginLayoutParams) lp).topMargin;
             }
+            int cl = getPaddingLeft() + cells.getLeft(cell) + leftMargin;
+            int ct = getPaddingTop() + cells.getTop(cell) + topMargin;
+            child.layout(cl, ct, cl + child.getMeasuredWidth(), ct + child.getMeasuredHeight());
+            cell++;
         }
     }
 
+    /**
+     * 超出最大行数时隐藏的child个数变化时回调，在onMeasure中执行，可以在这里更新提示的文字
+     */
+    public interface OnOverflowListener {
+        void onOverflowChanged(FlowLayout parent, int hiddenCount);
+    }
+
 
     @Override
     protected ViewGroup.LayoutParams generateDefaultLayoutParams() {
         return new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
     }
 
+    /**
+     * 只接受FlowLayout.LayoutParams，其他的在addView时转换，测量结果才能缓存在LayoutParams中
+     */
+    @Override
+    protected boolean checkLayoutParams(ViewGroup.LayoutParams p) {
+        return p instanceof LayoutParams;
+    }
+
     @Override
     protected ViewGroup.LayoutParams generateLayoutParams(ViewGroup.LayoutParams p) {
+        if (p instanceof MarginLayoutParams) {
+            return new LayoutParams((MarginLayoutParams) p);
+        }
         return new LayoutParams(p);
     }
 
@@ -311,6 +1174,14 @@ public class FlowLayout extends ViewGroup {
     }
 
     public static class LayoutParams extends ViewGroup.MarginLayoutParams {
+
+        /**
+         * 上一次测量child时使用的MeasureSpec
+         */
+        int mWidthMeasureSpec;
+        int mHeightMeasureSpec;
+        boolean mMeasured;
+
         public LayoutParams(Context c, AttributeSet attrs) {
             super(c, attrs);
         }
@@ -0,0 +1,435 @@
+package com.warm.flowlayout;
+
+import android.graphics.PointF;
+import android.graphics.Rect;
+import android.support.v7.widget.LinearSmoothScroller;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.warm.flowlayout.engine.FlowLayoutEngine;
+
+import java.util.Arrays;
+
+/**
+ * 作者：warm
+ * 时间：2026-10-18
+ * 描述：FlowLayout的RecyclerView版本，换行计算同样交给FlowLayoutEngine（spaceH、spaceV、horizontalSize、九宫格），
+ * 但只有屏幕内的item会被添加为child，滑出屏幕的交给RecyclerView回收复用。
+ * 每个item的位置只在第一次滑到它附近时计算一次，之后直接使用。
+ */
+public class FlowLayoutManager extends RecyclerView.LayoutManager implements RecyclerView.SmoothScroller.ScrollVectorProvider {
+
+    public static final int NINE = FlowLayout.NINE;
+
+    /**
+     * 横向间隙
+     */
+    private int mSpaceH;
+
+    /**
+     * 纵向间隙
+     */
+    private int mSpaceV;
+
+    /**
+     * 设置默认多少列
+     */
+    private int mHorizontalSize;
+
+    /**
+     * 纵向滑动的距离
+     */
+    private int mScrollOffset;
+
+    private int mPendingScrollPosition = RecyclerView.NO_POSITION;
+
+    /**
+     * 计算位置时使用的宽度、padding和item个数，发生变化时需要重新计算
+     */
+    private int mComputedWidth;
+    private int mComputedPaddingLeft;
+    private int mComputedPaddingTop;
+    private int mComputedPaddingRight;
+    private int mComputedItemCount;
+
+    /**
+     * 已经测量过大小的item个数，和已经确定位置的item个数
+     */
+    private int mMeasuredCount;
+    private int mComputedCount;
+
+    /**
+     * 换行计算，item的位置不减去滑动距离，margin和ItemDecoration已经算在item的大小中
+     */
+    private final FlowLayoutEngine mEngine = new FlowLayoutEngine();
+
+    /**
+     * 每个item包含margin和ItemDecoration的大小
+     */
+    private int[] mItemWidths = new int[0];
+    private int[] mItemHeights = new int[0];
+
+    private final Rect mDecorInsets = new Rect();
+
+    public FlowLayoutManager() {
+    }
+
+    public FlowLayoutManager(int spaceH, int spaceV, int horizontalSize) {
+        mSpaceH = spaceH;
+        mSpaceV = spaceV;
+        mHorizontalSize = horizontalSize;
+    }
+
+    public int getHorizontalSize() {
+        return mHorizontalSize;
+    }
+
+    public void setHorizontalSize(int horizontalSize) {
+        this.mHorizontalSize = horizontalSize;
+        invalidateFrom(0);
+        requestLayout();
+    }
+
+    public int getSpaceH() {
+        return mSpaceH;
+    }
+
+    public void setSpaceH(int spaceH) {
+        this.mSpaceH = spaceH;
+        invalidateFrom(0);
+        requestLayout();
+    }
+
+    public int getSpaceV() {
+        return mSpaceV;
+    }
+
+    public void setSpaceV(int spaceV) {
+        this.mSpaceV = spaceV;
+        invalidateFrom(0);
+        requestLayout();
+    }
+
+    private boolean isNine() {
+        return mHorizontalSize == NINE;
+    }
+
+    private int realHorizontalSize(int itemCount) {
+        return isNine() ? FlowLayout.nineColumns(itemCount) : mHorizontalSize;
+    }
+
+    @Override
+    public RecyclerView.LayoutParams generateDefaultLayoutParams() {
+        return new RecyclerView.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+    }
+
+    @Override
+    public boolean canScrollVertically() {
+        return true;
+    }
+
+    @Override
+    public void onLayoutChildren(RecyclerView.Recycler recycler, RecyclerView.State state) {
+        final int itemCount = state.getItemCount();
+        if (itemCount == 0) {
+            removeAndRecycleAllViews(recycler);
+            invalidateFrom(0);
+            mScrollOffset = 0;
+            return;
+        }
+        if (mComputedWidth != getWidth()
+                || mComputedPaddingLeft != getPaddingLeft()
+                || mComputedPaddingTop != getPaddingTop()
+                || mComputedPaddingRight != getPaddingRight()
+                || mComputedItemCount != itemCount && isNine()) {
+            mComputedWidth = getWidth();
+            mComputedPaddingLeft = getPaddingLeft();
+            mComputedPaddingTop = getPaddingTop();
+            mComputedPaddingRight = getPaddingRight();
+            mComputedItemCount = itemCount;
+            invalidateFrom(0);
+        }
+        mComputedItemCount = itemCount;
+
+        detachAndScrapAttachedViews(recycler);
+
+        if (mPendingScrollPosition != RecyclerView.NO_POSITION) {
+            int position = Math.min(mPendingScrollPosition, itemCount - 1);
+            while (mComputedCount <= position && computeNextLine(recycler, itemCount)) {
+            }
+            mScrollOffset = mEngine.getLineTop(mEngine.lineOf(position)) - getPaddingTop();
+            mPendingScrollPosition = RecyclerView.NO_POSITION;
+        }
+        ensureComputed(recycler, itemCount, mScrollOffset + getHeight());
+        mScrollOffset = Math.max(0, Math.min(mScrollOffset, maxScrollOffset(mScrollOffset)));
+        attachVisible(recycler);
+    }
+
+    @Override
+    public int scrollVerticallyBy(int dy, RecyclerView.Recycler recycler, RecyclerView.State state) {
+        if (getChildCount() == 0 || dy == 0) {
+            return 0;
+        }
+        int target = mScrollOffset + dy;
+        if (dy > 0) {
+            ensureComputed(recycler, state.getItemCount(), target + getHeight());
+            target = Math.min(target, maxScrollOffset(target));
+        }
+        target = Math.max(0, target);
+        int consumed = target - mScrollOffset;
+        if (consumed == 0) {
+            return 0;
+        }
+        mScrollOffset = target;
+        offsetChildrenVertical(-consumed);
+        recycleInvisible(recycler);
+        attachVisible(recycler);
+        return consumed;
+    }
+
+    @Override
+    public void scrollToPosition(int position) {
+        mPendingScrollPosition = position;
+        requestLayout();
+    }
+
+    @Override
+    public void smoothScrollToPosition(RecyclerView recyclerView, RecyclerView.State state, int position) {
+        LinearSmoothScroller scroller = new LinearSmoothScroller(recyclerView.getContext());
+        scroller.setTargetPosition(position);
+        startSmoothScroll(scroller);
+    }
+
+    @Override
+    public PointF computeScrollVectorForPosition(int targetPosition) {
+        if (getChildCount() == 0) {
+            return null;
+        }
+        int firstPosition = getPosition(getChildAt(0));
+        return new PointF(0, targetPosition < firstPosition ? -1 : 1);
+    }
+
+    @Override
+    public int computeVerticalScrollOffset(RecyclerView.State state) {
+        return mScrollOffset;
+    }
+
+    @Override
+    public int computeVerticalScrollExtent(RecyclerView.State state) {
+        return getHeight();
+    }
+
+    @Override
+    public int computeVerticalScrollRange(RecyclerView.State state) {
+        if (mComputedCount == 0) {
+            return 0;
+        }
+        int computedHeight = mEngine.getContentBottom() + getPaddingBottom();
+        //未计算的部分按已计算部分的平均高度估算
+        return (int) ((long) computedHeight * state.getItemCount() / mComputedCount);
+    }
+
+    @Override
+    public void onAdapterChanged(RecyclerView.Adapter oldAdapter, RecyclerView.Adapter newAdapter) {
+        removeAllViews();
+        invalidateFrom(0);
+        mScrollOffset = 0;
+    }
+
+    @Override
+    public void onItemsChanged(RecyclerView recyclerView) {
+        invalidateFrom(0);
+    }
+
+    @Override
+    public void onItemsAdded(RecyclerView recyclerView, int positionStart, int itemCount) {
+        invalidateFrom(positionStart);
+    }
+
+    @Override
+    public void onItemsRemoved(RecyclerView recyclerView, int positionStart, int itemCount) {
+        invalidateFrom(positionStart);
+    }
+
+    @Override
+    public void onItemsUpdated(RecyclerView recyclerView, int positionStart, int itemCount) {
+        invalidateFrom(positionStart);
+    }
+
+    @Override
+    public void onItemsMoved(RecyclerView recyclerView, int from, int to, int itemCount) {
+        invalidateFrom(Math.min(from, to));
+    }
+
+    /**
+     * position及之后的item需要重新测量，position可能放进前一个item所在的行，所以从那一行开始重新计算
+     */
+    private void invalidateFrom(int position) {
+        mEngine.setSpace(mSpaceH, mSpaceV);
+        mEngine.setBounds(mComputedWidth, mComputedPaddingLeft, mComputedPaddingTop, mComputedPaddingRight);
+        mEngine.setColumns(realHorizontalSize(mComputedItemCount));
+        if (isNine() || position <= 0 || mEngine.getLineCount() == 0) {
+            mEngine.begin(0);
+            mComputedCount = 0;
+            mMeasuredCount = 0;
+            return;
+        }
+        if (position > mComputedCount) {
+            mMeasuredCount = Math.min(mMeasuredCount, position);
+            return;
+        }
+        int line = mEngine.lineOf(position - 1);
+        mComputedCount = mEngine.getLineStart(line);
+        mMeasuredCount = Math.min(mMeasuredCount, position);
+        mEngine.begin(line);
+    }
+
+    /**
+     * 向后计算，直到有一行从bottom或者更下面开始，或者所有item都已经计算；
+     * 这样和bottom相交的那一行也已经放完，不会只显示它的第一个item
+     */
+    private void ensureComputed(RecyclerView.Recycler recycler, int itemCount, int bottom) {
+        while (!mEngine.isFilledTo(bottom) && computeNextLine(recycler, itemCount)) {
+        }
+    }
+
+    /**
+     * 把最后一行补充完整：一直添加item，直到有item换到新的一行，或者所有item都已经添加
+     */
+    private boolean computeNextLine(RecyclerView.Recycler recycler, int itemCount) {
+        if (mComputedCount >= itemCount) {
+            return false;
+        }
+        ensureItemCapacity(itemCount);
+        final int targetLineCount = Math.max(mEngine.getLineCount(), 1) + 1;
+        while (mComputedCount < itemCount && mEngine.getLineCount() < targetLineCount) {
+            if (mComputedCount >= mMeasuredCount) {
+                measureForPosition(recycler, mComputedCount, itemCount);
+            }
+            mEngine.add(mComputedCount, mItemWidths[mComputedCount], mItemHeights[mComputedCount], 0, 0, 0, 0);
+            mComputedCount++;
+        }
+        return true;
+    }
+
+    private void measureForPosition(RecyclerView.Recycler recycler, int position, int itemCount) {
+        View view = recycler.getViewForPosition(position);
+        measureItem(view, itemCount);
+        RecyclerView.LayoutParams lp = (RecyclerView.LayoutParams) view.getLayoutParams();
+        mItemWidths[position] = getDecoratedMeasuredWidth(view) + lp.leftMargin + lp.rightMargin;
+        mItemHeights[position] = getDecoratedMeasuredHeight(view) + lp.topMargin + lp.bottomMargin;
+        mMeasuredCount = position + 1;
+        recycler.recycleView(view);
+    }
+
+    private void measureItem(View view, int itemCount) {
+        final RecyclerView.LayoutParams lp = (RecyclerView.LayoutParams) view.getLayoutParams();
+        calculateItemDecorationsForChild(view, mDecorInsets);
+        final int widthUsed = lp.leftMargin + lp.rightMargin + mDecorInsets.left + mDecorInsets.right;
+        final int heightUsed = lp.topMargin + lp.bottomMargin + mDecorInsets.top + mDecorInsets.bottom;
+
+        int widthSpec;
+        int heightSpec;
+        int realHorizontalSize = realHorizontalSize(itemCount);
+        if (realHorizontalSize != 0) {
+            int itemWidth = (getWidth() - (getPaddingLeft() + getPaddingRight()) - (realHorizontalSize - 1) * mSpaceH) / realHorizontalSize;
+            widthSpec = View.MeasureSpec.makeMeasureSpec(Math.max(0, itemWidth - widthUsed), View.MeasureSpec.EXACTLY);
+            if (isNine()) {
+                int itemHeight = itemCount == 1 ? itemWidth / 2 : itemWidth;
+                heightSpec = View.MeasureSpec.makeMeasureSpec(Math.max(0, itemHeight - heightUsed), View.MeasureSpec.EXACTLY);
+            } else {
+                heightSpec = getChildMeasureSpec(getHeight(), getHeightMode(), getPaddingTop() + getPaddingBottom() + heightUsed, lp.height, true);
+            }
+        } else {
+            widthSpec = getChildMeasureSpec(getWidth(), getWidthMode(), getPaddingLeft() + getPaddingRight() + widthUsed, lp.width, false);
+            heightSpec = getChildMeasureSpec(getHeight(), getHeightMode(), getPaddingTop() + getPaddingBottom() + heightUsed, lp.height, true);
+        }
+        view.measure(widthSpec, heightSpec);
+    }
+
+    /**
+     * 把屏幕内还没有添加的item添加进来，child始终按position顺序排列
+     */
+    private void attachVisible(RecyclerView.Recycler recycler) {
+        final int lineCount = mEngine.getLineCount();
+        if (lineCount == 0) {
+            return;
+        }
+        final int itemCount = mComputedItemCount;
+        int firstLine = firstVisibleLine();
+        int first = mEngine.getLineStart(firstLine);
+        int last = first - 1;
+        for (int line = firstLine; line < lineCount && mEngine.getLineTop(line) - mScrollOffset < getHeight(); line++) {
+            last = line + 1 < lineCount ? mEngine.getLineStart(line + 1) - 1 : mComputedCount - 1;
+        }
+        if (getChildCount() == 0) {
+            for (int position = first; position <= last; position++) {
+                attach(recycler, position, -1, itemCount);
+            }
+            return;
+        }
+        int firstAttached = getPosition(getChildAt(0));
+        int lastAttached = getPosition(getChildAt(getChildCount() - 1));
+        for (int position = Math.min(firstAttached - 1, last); position >= first; position--) {
+            attach(recycler, position, 0, itemCount);
+        }
+        for (int position = Math.max(lastAttached + 1, first); position <= last; position++) {
+            attach(recycler, position, -1, itemCount);
+        }
+    }
+
+    private void attach(RecyclerView.Recycler recycler, int position, int index, int itemCount) {
+        View view = recycler.getViewForPosition(position);
+        addView(view, index);
+        measureItem(view, itemCount);
+        int left = mEngine.getChildLeft(position);
+        int top = mEngine.getChildTop(position) - mScrollOffset;
+        layoutDecoratedWithMargins(view, left, top, left + mItemWidths[position], top + mItemHeights[position]);
+    }
+
+    private void recycleInvisible(RecyclerView.Recycler recycler) {
+        for (int i = getChildCount() - 1; i >= 0; i--) {
+            View child = getChildAt(i);
+            RecyclerView.LayoutParams lp = (RecyclerView.LayoutParams) child.getLayoutParams();
+            if (getDecoratedBottom(child) + lp.bottomMargin <= 0 || getDecoratedTop(child) - lp.topMargin >= getHeight()) {
+                removeAndRecycleViewAt(i, recycler);
+            }
+        }
+    }
+
+    /**
+     * 第一个底部在屏幕内的行，二分查找
+     */
+    private int firstVisibleLine() {
+        int low = 0;
+        int high = mEngine.getLineCount() - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mEngine.getLineTop(mid) + mEngine.getLineHeight(mid) - mScrollOffset > 0) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private int maxScrollOffset(int target) {
+        if (mComputedCount < mComputedItemCount) {
+            //还有未计算的行，已计算的部分已经覆盖到target
+            return target;
+        }
+        return Math.max(0, mEngine.getContentBottom() + getPaddingBottom() - getHeight());
+    }
+
+    private void ensureItemCapacity(int count) {
+        mEngine.ensureChildCapacity(count);
+        if (mItemWidths.length < count) {
+            int capacity = Math.max(count, mItemWidths.length * 2);
+            mItemWidths = Arrays.copyOf(mItemWidths, capacity);
+            mItemHeights = Arrays.copyOf(mItemHeights, capacity);
+        }
+    }
+
+}
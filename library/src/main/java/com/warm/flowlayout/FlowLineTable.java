@@ -0,0 +1,386 @@
+package com.warm.flowlayout;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.warm.flowlayout.engine.FlowLayoutEngine;
+
+import java.util.Arrays;
+
+/**
+ * 作者：warm
+ * 时间：2026-10-18
+ * 描述：行表，换行计算交给{@link FlowLayoutEngine}，onLayout时直接回放engine中的位置；
+ * 同时保存上一次参与计算的child，只有尾部child发生变化时，从最后受影响的一行开始重新计算。
+ * 另外按宽度缓存最近几次的结果，旋转屏幕、分屏调整大小后切回原来的宽度时，child没有变化就直接使用。
+ */
+final class FlowLineTable {
+
+    /**
+     * 按宽度缓存的结果个数：竖屏、横屏、分屏
+     */
+    private static final int WIDTH_CACHE_SIZE = 3;
+
+    /**
+     * 宽度为UNSPECIFIED时的可用宽度，所有child排成一行；留出余量避免相加溢出
+     */
+    private static final int UNBOUNDED = Integer.MAX_VALUE / 2;
+
+    final FlowLayoutEngine engine = new FlowLayoutEngine();
+
+    /**
+     * 上一次参与计算的child
+     */
+    private View[] mChildren = new View[0];
+    int childCount;
+
+    /**
+     * 本次计算从哪个child开始
+     */
+    int firstDirtyChild;
+
+    /**
+     * onLayout从哪个child开始回放：上一次onLayout之后所有测量中最小的firstDirtyChild，
+     * 父控件连续测量多次再布局时，前面几次计算过的child也需要重新layout
+     */
+    int layoutStart;
+
+    /**
+     * 本次测量是否直接使用了按宽度缓存的结果，此时只需要测量child，不需要调用engine.add
+     */
+    boolean restored;
+
+    /**
+     * 本次测量child时使用的widthMeasureSpec，通常与父控件的相同，见beginPass
+     */
+    int childWidthMeasureSpec;
+
+    /**
+     * 父控件最近一次测量得到的宽度，见resolveWidth
+     */
+    private int resolvedWidth;
+
+    /**
+     * 最近使用的按宽度缓存的结果，下标0最新
+     */
+    private final WidthEntry[] mWidthCache = new WidthEntry[WIDTH_CACHE_SIZE];
+
+    /**
+     * child或者影响所有行的属性变化时加1，之前缓存的结果全部失效
+     */
+    private int mGeneration;
+
+    private boolean mRestorable;
+
+    private boolean mValid;
+    private int mWidthMeasureSpec;
+    private int mHeightMeasureSpec;
+    private int mPaddingLeft;
+    private int mPaddingTop;
+    private int mPaddingRight;
+    private int mSpaceH;
+    private int mSpaceV;
+
+    /**
+     * 间隙、列数等影响所有行的属性变化时调用，下一次必须完整计算
+     */
+    void invalidate() {
+        mValid = false;
+        mGeneration++;
+    }
+
+    /**
+     * 开始一次测量，之后对firstDirtyChild及之后的可见child调用engine.add
+     *
+     * @param incremental 是否允许只计算尾部
+     * @param restorable  是否允许使用按宽度缓存的结果，使用时restored为true
+     */
+    void beginPass(ViewGroup parent, int widthMeasureSpec, int heightMeasureSpec, int spaceH, int spaceV,
+                   boolean incremental, boolean restorable) {
+        final int newCount = parent.getChildCount();
+        ensureChildCapacity(newCount);
+        final boolean changed = childrenChanged(parent);
+        if (changed) {
+            mGeneration++;
+        }
+        mRestorable = restorable;
+        mSpaceH = spaceH;
+        mSpaceV = spaceV;
+        firstDirtyChild = 0;
+        restored = false;
+        childWidthMeasureSpec = widthMeasureSpec;
+        if (restorable && !changed && isResolvedWidth(parent, widthMeasureSpec, heightMeasureSpec)) {
+            //wrap_content之后，ConstraintLayout等父控件再用测量得到的宽度EXACTLY测量一次，
+            //每一行都放得下，换行结果不变；child继续使用上一次的spec，命中child自身的测量缓存
+            childWidthMeasureSpec = mWidthMeasureSpec;
+            engine.setBounds(View.MeasureSpec.getSize(widthMeasureSpec), parent.getPaddingLeft(), parent.getPaddingTop(), parent.getPaddingRight());
+            firstDirtyChild = 0;
+            restored = true;
+            saveSpecs(parent, widthMeasureSpec, heightMeasureSpec);
+            return;
+        }
+        if (restorable) {
+            WidthEntry entry = findWidthEntry(parent, widthMeasureSpec, heightMeasureSpec, spaceH, spaceV);
+            if (entry != null) {
+                engine.copyFrom(entry.engine);
+                firstDirtyChild = 0;
+                restored = true;
+                saveSpecs(parent, widthMeasureSpec, heightMeasureSpec);
+                return;
+            }
+        }
+
+        int resumeLine = 0;
+        //两端对齐、均衡换行会调整之前的行，只能完整计算
+        if (incremental && mValid && engine.getLineCount() > 0
+                && engine.getLineBreakStrategy() == FlowLayoutEngine.BREAK_GREEDY
+                && mWidthMeasureSpec == widthMeasureSpec
+                && mHeightMeasureSpec == heightMeasureSpec
+                && mPaddingLeft == parent.getPaddingLeft()
+                && mPaddingTop == parent.getPaddingTop()
+                && mPaddingRight == parent.getPaddingRight()) {
+            //找到第一个被替换、GONE状态变化或者请求重新布局的child，它之前的行都可以沿用
+            final int prefix = Math.min(newCount, childCount);
+            final int childEnd = engine.getChildEnd();
+            int firstChanged = prefix;
+            for (int i = 0; i < prefix; i++) {
+                if (isChildChanged(parent.getChildAt(i), i, childEnd)) {
+                    firstChanged = i;
+                    break;
+                }
+            }
+            //新child可能放得进最后一个未变化child所在的行，所以从这一行开始
+            if (firstChanged > 0) {
+                resumeLine = engine.lineOf(firstChanged - 1);
+            }
+        }
+
+        firstDirtyChild = resumeLine == 0 ? 0 : engine.getLineStart(resumeLine);
+        configure(parent, widthMeasureSpec, spaceH, spaceV);
+        engine.ensureChildCapacity(newCount);
+        engine.begin(resumeLine);
+        saveSpecs(parent, widthMeasureSpec, heightMeasureSpec);
+    }
+
+    /**
+     * 按父控件当前的状态设置engine的间隙和边界，不影响已有的结果；列数等其余属性由父控件设置
+     */
+    void configure(ViewGroup parent, int widthMeasureSpec, int spaceH, int spaceV) {
+        engine.setSpace(spaceH, spaceV);
+        final int width = View.MeasureSpec.getMode(widthMeasureSpec) == View.MeasureSpec.UNSPECIFIED && engine.getColumns() == 0
+                ? UNBOUNDED : View.MeasureSpec.getSize(widthMeasureSpec);
+        engine.setBounds(width, parent.getPaddingLeft(), parent.getPaddingTop(), parent.getPaddingRight());
+    }
+
+    /**
+     * 上一次是AT_MOST或UNSPECIFIED，这一次是以上一次测量得到的宽度EXACTLY测量
+     */
+    private boolean isResolvedWidth(ViewGroup parent, int widthMeasureSpec, int heightMeasureSpec) {
+        return mValid && engine.getLineCount() > 0
+                && engine.getColumns() == 0
+                && engine.getLineBreakStrategy() == FlowLayoutEngine.BREAK_GREEDY
+                && View.MeasureSpec.getMode(mWidthMeasureSpec) != View.MeasureSpec.EXACTLY
+                && View.MeasureSpec.getMode(widthMeasureSpec) == View.MeasureSpec.EXACTLY
+                && View.MeasureSpec.getSize(widthMeasureSpec) == resolvedWidth
+                && mHeightMeasureSpec == heightMeasureSpec
+                && mPaddingLeft == parent.getPaddingLeft()
+                && mPaddingTop == parent.getPaddingTop()
+                && mPaddingRight == parent.getPaddingRight();
+    }
+
+    /**
+     * 按测量模式决定父控件的宽度并记录下来，由父控件在setMeasuredDimension之前调用；
+     * AT_MOST、UNSPECIFIED时为内容的宽度。固定列数时格子宽度由可用宽度决定，AT_MOST时占满可用宽度，
+     * 否则父控件再以这个宽度EXACTLY测量时格子会变窄
+     *
+     * @param contentRight 内容最右边的位置，已包含paddingLeft
+     */
+    int resolveWidth(int widthMeasureSpec, int contentRight, int paddingRight) {
+        final int size = View.MeasureSpec.getSize(widthMeasureSpec);
+        switch (View.MeasureSpec.getMode(widthMeasureSpec)) {
+            case View.MeasureSpec.EXACTLY:
+                resolvedWidth = size;
+                break;
+            case View.MeasureSpec.AT_MOST:
+                resolvedWidth = engine.getColumns() > 0 ? size : Math.min(size, contentRight + paddingRight);
+                break;
+            default:
+                resolvedWidth = contentRight + paddingRight;
+                break;
+        }
+        return resolvedWidth;
+    }
+
+    private void saveSpecs(ViewGroup parent, int widthMeasureSpec, int heightMeasureSpec) {
+        mWidthMeasureSpec = widthMeasureSpec;
+        mHeightMeasureSpec = heightMeasureSpec;
+        mPaddingLeft = parent.getPaddingLeft();
+        mPaddingTop = parent.getPaddingTop();
+        mPaddingRight = parent.getPaddingRight();
+        mValid = true;
+    }
+
+    /**
+     * 结束一次测量，记录本次参与计算的child
+     */
+    void endPass(ViewGroup parent) {
+        final int newCount = parent.getChildCount();
+        for (int i = firstDirtyChild; i < newCount; i++) {
+            mChildren[i] = parent.getChildAt(i);
+        }
+        for (int i = newCount; i < childCount; i++) {
+            mChildren[i] = null;
+        }
+        childCount = newCount;
+        layoutStart = Math.min(layoutStart, firstDirtyChild);
+        if (mRestorable && !restored) {
+            putWidthEntry(parent);
+        }
+    }
+
+    /**
+     * onLayout回放完成后调用，之后没有测量时不需要再layout任何child
+     */
+    void layoutDone() {
+        layoutStart = Integer.MAX_VALUE;
+    }
+
+    /**
+     * 与上一次参与计算的child相比，是否有增删、替换、GONE状态变化或者请求重新布局的child
+     */
+    private boolean childrenChanged(ViewGroup parent) {
+        final int count = parent.getChildCount();
+        if (count != childCount) {
+            return true;
+        }
+        final int childEnd = engine.getChildEnd();
+        for (int i = 0; i < count; i++) {
+            if (isChildChanged(parent.getChildAt(i), i, childEnd)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 第i个child是否被替换、GONE状态变化或者请求重新布局；GONE的child不参与计算，忽略它的重新布局请求
+     */
+    private boolean isChildChanged(View child, int i, int childEnd) {
+        if (child != mChildren[i]) {
+            return true;
+        }
+        boolean gone = child.getVisibility() == View.GONE;
+        if (i < childEnd && gone != (engine.getChildWidth(i) == FlowLayoutEngine.GONE)) {
+            return true;
+        }
+        return !gone && child.isLayoutRequested();
+    }
+
+    private WidthEntry findWidthEntry(ViewGroup parent, int widthMeasureSpec, int heightMeasureSpec, int spaceH, int spaceV) {
+        for (int i = 0; i < WIDTH_CACHE_SIZE; i++) {
+            WidthEntry entry = mWidthCache[i];
+            if (entry != null && entry.generation == mGeneration
+                    && entry.widthMeasureSpec == widthMeasureSpec && entry.heightMeasureSpec == heightMeasureSpec
+                    && entry.spaceH == spaceH && entry.spaceV == spaceV
+                    && entry.paddingLeft == parent.getPaddingLeft()
+                    && entry.paddingTop == parent.getPaddingTop()
+                    && entry.paddingRight == parent.getPaddingRight()) {
+                System.arraycopy(mWidthCache, 0, mWidthCache, 1, i);
+                mWidthCache[0] = entry;
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 保存本次结果；已经有相同宽度、相同child的结果时不需要再复制
+     */
+    private void putWidthEntry(ViewGroup parent) {
+        int index = WIDTH_CACHE_SIZE - 1;
+        for (int i = 0; i < WIDTH_CACHE_SIZE; i++) {
+            WidthEntry entry = mWidthCache[i];
+            if (entry != null && entry.widthMeasureSpec == mWidthMeasureSpec && entry.heightMeasureSpec == mHeightMeasureSpec) {
+                if (entry.generation == mGeneration) {
+                    return;
+                }
+                index = i;
+                break;
+            }
+        }
+        WidthEntry entry = mWidthCache[index];
+        if (entry == null) {
+            entry = new WidthEntry();
+        }
+        System.arraycopy(mWidthCache, 0, mWidthCache, 1, index);
+        mWidthCache[0] = entry;
+        entry.engine.copyFrom(engine);
+        entry.generation = mGeneration;
+        entry.widthMeasureSpec = mWidthMeasureSpec;
+        entry.heightMeasureSpec = mHeightMeasureSpec;
+        entry.spaceH = mSpaceH;
+        entry.spaceV = mSpaceV;
+        entry.paddingLeft = parent.getPaddingLeft();
+        entry.paddingTop = parent.getPaddingTop();
+        entry.paddingRight = parent.getPaddingRight();
+    }
+
+    /**
+     * 坐标所在的child，x、y为parent自身的坐标；
+     * 行表和child一致时二分查找，child已经变化但还没有重新布局时，退化为逐个比较
+     */
+    View childAt(ViewGroup parent, int x, int y) {
+        final int scrolledX = x + parent.getScrollX();
+        final int scrolledY = y + parent.getScrollY();
+        if (parent.isLayoutRequested()) {
+            return findChildUnder(parent, x, y);
+        }
+        int index = engine.childIndexAt(scrolledX, scrolledY);
+        if (index < 0 || index >= parent.getChildCount()) {
+            return null;
+        }
+        View child = parent.getChildAt(index);
+        if (child.getVisibility() != View.VISIBLE || !contains(child, scrolledX, scrolledY)) {
+            return null;
+        }
+        return child;
+    }
+
+    /**
+     * 逐个比较child的位置
+     */
+    static View findChildUnder(ViewGroup parent, int x, int y) {
+        final int scrolledX = x + parent.getScrollX();
+        final int scrolledY = y + parent.getScrollY();
+        for (int i = parent.getChildCount() - 1; i >= 0; i--) {
+            View child = parent.getChildAt(i);
+            if (child.getVisibility() == View.VISIBLE && contains(child, scrolledX, scrolledY)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private static boolean contains(View child, int x, int y) {
+        return x >= child.getLeft() && x < child.getRight() && y >= child.getTop() && y < child.getBottom();
+    }
+
+    private void ensureChildCapacity(int count) {
+        if (mChildren.length < count) {
+            mChildren = Arrays.copyOf(mChildren, Math.max(count, mChildren.length * 2));
+        }
+    }
+
+    private static final class WidthEntry {
+        final FlowLayoutEngine engine = new FlowLayoutEngine();
+        int generation;
+        int widthMeasureSpec;
+        int heightMeasureSpec;
+        int spaceH;
+        int spaceV;
+        int paddingLeft;
+        int paddingTop;
+        int paddingRight;
+    }
+
+}
@@ -0,0 +1,123 @@
+package com.warm.flowlayout;
+
+import com.warm.flowlayout.engine.FlowLayoutEngine;
+
+/**
+ * 作者：warm
+ * 时间：2026-10-18
+ * 描述：多个FlowLayout共享的测量缓存，按(内容key, widthMeasureSpec, heightMeasureSpec, 统一行高)
+ * 以及间隙、padding、列数、最大行数、换行策略保存换行结果，
+ * 列表中内容和设置都相同的FlowLayout重新绑定时，直接使用缓存的行和child大小，不再做换行计算。
+ * 容量满时淘汰最久未使用的结果，并复用它的对象，稳定之后不再分配。只在主线程使用。
+ */
+public final class FlowMeasureCache {
+
+    /**
+     * 最近使用的结果，下标0最新
+     */
+    private final Entry[] mEntries;
+
+    private int mSize;
+
+    private int mHitCount;
+    private int mMissCount;
+
+    public FlowMeasureCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        mEntries = new Entry[maxSize];
+    }
+
+    public int getMaxSize() {
+        return mEntries.length;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public int getHitCount() {
+        return mHitCount;
+    }
+
+    public int getMissCount() {
+        return mMissCount;
+    }
+
+    public void clear() {
+        for (int i = 0; i < mSize; i++) {
+            mEntries[i].mContent = null;
+        }
+        mSize = 0;
+    }
+
+    /**
+     * @param settings 已经按父控件当前的状态设置了间隙、边界、列数等属性的engine，只比较设置，不读取结果
+     */
+    FlowLayoutEngine get(Object key, int widthMeasureSpec, int heightMeasureSpec, boolean uniformRowHeight,
+                         FlowLayoutEngine settings) {
+        int index = indexOf(key, widthMeasureSpec, heightMeasureSpec, uniformRowHeight, settings);
+        if (index < 0) {
+            mMissCount++;
+            return null;
+        }
+        mHitCount++;
+        return moveToFront(index).mEngine;
+    }
+
+    void put(Object key, int widthMeasureSpec, int heightMeasureSpec, boolean uniformRowHeight, FlowLayoutEngine engine) {
+        int index = indexOf(key, widthMeasureSpec, heightMeasureSpec, uniformRowHeight, engine);
+        if (index < 0) {
+            //没有空位时复用最久未使用的一项
+            if (mSize < mEntries.length) {
+                index = mSize++;
+                if (mEntries[index] == null) {
+                    mEntries[index] = new Entry();
+                }
+            } else {
+                index = mSize - 1;
+            }
+        }
+        Entry entry = moveToFront(index);
+        entry.mContent = key;
+        entry.mHash = key.hashCode();
+        entry.mWidthMeasureSpec = widthMeasureSpec;
+        entry.mHeightMeasureSpec = heightMeasureSpec;
+        entry.mUniformRowHeight = uniformRowHeight;
+        entry.mEngine.copyFrom(engine);
+    }
+
+    private int indexOf(Object key, int widthMeasureSpec, int heightMeasureSpec, boolean uniformRowHeight,
+                        FlowLayoutEngine settings) {
+        final int hash = key.hashCode();
+        for (int i = 0; i < mSize; i++) {
+            Entry entry = mEntries[i];
+            if (entry.mHash == hash && entry.mWidthMeasureSpec == widthMeasureSpec
+                    && entry.mHeightMeasureSpec == heightMeasureSpec
+                    && entry.mUniformRowHeight == uniformRowHeight
+                    && entry.mEngine.hasSameSettings(settings)
+                    && entry.mContent.equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private Entry moveToFront(int index) {
+        Entry entry = mEntries[index];
+        System.arraycopy(mEntries, 0, mEntries, 1, index);
+        mEntries[0] = entry;
+        return entry;
+    }
+
+    private static final class Entry {
+        final FlowLayoutEngine mEngine = new FlowLayoutEngine();
+        Object mContent;
+        int mHash;
+        int mWidthMeasureSpec;
+        int mHeightMeasureSpec;
+        boolean mUniformRowHeight;
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.warm.flowlayout;
+
+import android.view.ViewGroup;
+
+/**
+ * 作者：warm
+ * 时间：2026-10-18
+ * 描述：FlowLayout、FlowRadioGroup每次onMeasure、onLayout之后回调，用于统计测量次数和耗时；
+ * 参数都是基本类型，回调本身不分配对象；FlowLayout使用宫格模板时lineCount为0。
+ */
+public interface FlowMetricsListener {
+
+    /**
+     * @param measuredCount 实际调用了measure的child个数
+     * @param skippedCount  没有调用measure的child个数：沿用上次结果、GONE、超出最大行数
+     */
+    void onMeasure(ViewGroup parent, int childCount, int lineCount, int measuredCount, int skippedCount, long elapsedNanos);
+
+    /**
+     * @param laidOutCount 重新layout的child个数，增量计算时沿用的行不需要layout
+     */
+    void onLayout(ViewGroup parent, int childCount, int lineCount, int laidOutCount, long elapsedNanos);
+
+}
@@ -1,11 +1,18 @@
 package com.warm.flowlayout;
 
 import android.content.Context;
-import android.content.res.TypedArray;
 import android.util.AttributeSet;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.CompoundButton;
+import android.widget.RadioButton;
 import android.widget.RadioGroup;
+import android.widget.TextView;
+
+import com.warm.flowlayout.engine.FlowLayoutEngine;
+
+import java.util.BitSet;
+import java.util.List;
 
 
 public class FlowRadioGroup extends RadioGroup {
@@ -25,24 +32,126 @@ public class FlowRadioGroup extends RadioGroup {
      */
     private int mHorizontalSize;
 
+    /**
+     * 行表：onMeasure时计算，onLayout时直接回放
+     */
+    private final FlowLineTable mLineTable = new FlowLineTable();
+
+    /**
+     * 只有尾部child增删时，是否只重新计算最后受影响的行
+     */
+    private boolean mIncrementalLayout;
+
+    private final FlowAdapterBinder mAdapterBinder = new FlowAdapterBinder(this);
+
+    private FlowMetricsListener mMetricsListener;
+
+    private final FlowBatch mBatch = new FlowBatch(this);
+
+    private final FlowAsyncChildren mAsyncChildren = new FlowAsyncChildren(this, mBatch);
+
+    private final FlowRelayoutAnimator mRelayoutAnimator = new FlowRelayoutAnimator(this);
+
+    /**
+     * 多选模式，child需要是CheckBox、ToggleButton等非RadioButton的CompoundButton
+     */
+    private boolean mMultiChoice;
+
+    /**
+     * 多选模式下选中的position，child增删后在下次读取时从child重新同步
+     */
+    private final BitSet mCheckedPositions = new BitSet();
+    private boolean mCheckedPositionsDirty;
+
+    /**
+     * setChecked(int[])使用，避免每次创建
+     */
+    private final BitSet mTargetPositions = new BitSet();
+
+    /**
+     * 代码修改选中状态时，忽略child的状态回调
+     */
+    private boolean mProtectFromCheckedChange;
+
+    private OnCheckedPositionsChangeListener mOnCheckedPositionsChangeListener;
+
+    private final CompoundButton.OnCheckedChangeListener mChildCheckedListener = new CompoundButton.OnCheckedChangeListener() {
+        @Override
+        public void onCheckedChanged(CompoundButton buttonView, boolean isChecked) {
+            if (mProtectFromCheckedChange) {
+                return;
+            }
+            if (!mCheckedPositionsDirty) {
+                int position = indexOfChild(buttonView);
+                if (position >= 0) {
+                    mCheckedPositions.set(position, isChecked);
+                }
+            }
+            dispatchCheckedPositionsChanged();
+        }
+    };
+
+    /**
+     * 在用户的OnHierarchyChangeListener之前，给多选的child设置状态回调
+     */
+    private final OnHierarchyChangeListener mChildListener = new OnHierarchyChangeListener() {
+        @Override
+        public void onChildViewAdded(View parent, View child) {
+            if (mMultiChoice) {
+                if (isMultiChoiceChild(child)) {
+                    ((CompoundButton) child).setOnCheckedChangeListener(mChildCheckedListener);
+                }
+                //尾部添加时直接更新，否则position发生移动，下次读取时重新同步
+                int last = getChildCount() - 1;
+                if (!mCheckedPositionsDirty && getChildAt(last) == child) {
+                    mCheckedPositions.set(last, isMultiChoiceChild(child) && ((CompoundButton) child).isChecked());
+                } else {
+                    mCheckedPositionsDirty = true;
+                }
+            }
+            mBatch.onChildViewAdded(parent, child);
+        }
+
+        @Override
+        public void onChildViewRemoved(View parent, View child) {
+            if (mMultiChoice) {
+                if (isMultiChoiceChild(child)) {
+                    ((CompoundButton) child).setOnCheckedChangeListener(null);
+                }
+                mCheckedPositionsDirty = true;
+            }
+            mBatch.onChildViewRemoved(parent, child);
+        }
+    };
+
+    /**
+     * 本次onMeasure中实际调用了measure的child个数
+     */
+    private int mMeasuredChildCount;
+
+    /**
+     * 固定列数时所有行等高：只测量第一个child得到行高，之后的child直接使用格子宽度和行高
+     */
+    private boolean mUniformRowHeight;
+
+    /**
+     * 统一的行高，包含margin
+     */
+    private int mRowHeight;
+
     public FlowRadioGroup(Context context) {
         this(context, null);
     }
 
     public FlowRadioGroup(Context context, AttributeSet attrs) {
         super(context, attrs);
-        TypedArray array = context.getTheme().obtainStyledAttributes(attrs, R.styleable.FlowLayout, 0, 0);
-        for (int i = 0; i < array.getIndexCount(); i++) {
-            int item = array.getIndex(i);
-            if (item == R.styleable.FlowLayout_horizontalSize) {
-                mHorizontalSize = array.getInt(item, 0);
-            } else if (item == R.styleable.FlowLayout_spaceH) {
-                mSpaceH = array.getDimensionPixelSize(item, 0);
-            } else {
-                mSpaceV = array.getDimensionPixelSize(item, 0);
-            }
-        }
-        array.recycle();
+        FlowAttributes attributes = FlowAttributes.obtain(context, attrs);
+        mHorizontalSize = attributes.horizontalSize;
+        mSpaceH = attributes.spaceH;
+        mSpaceV = attributes.spaceV;
+        mUniformRowHeight = attributes.uniformRowHeight;
+        mLineTable.engine.setLineBreakStrategy(attributes.lineBreakStrategy);
+        super.setOnHierarchyChangeListener(mChildListener);
 
     }
 
@@ -52,6 +161,7 @@ public class FlowRadioGroup extends RadioGroup {
 
     public void setHorizontalSize(int horizontalSize) {
         this.mHorizontalSize = horizontalSize;
+        mLineTable.invalidate();
     }
 
     public int getSpaceH() {
@@ -60,6 +170,7 @@ public class FlowRadioGroup extends RadioGroup {
 
     public void setSpaceH(int spaceH) {
         this.mSpaceH = spaceH;
+        mLineTable.invalidate();
     }
 
     public int getSpaceV() {
@@ -68,10 +179,381 @@ public class FlowRadioGroup extends RadioGroup {
 
     public void setSpaceV(int spaceV) {
         this.mSpaceV = spaceV;
+        mLineTable.invalidate();
+    }
+
+    public boolean isIncrementalLayout() {
+        return mIncrementalLayout;
+    }
+
+    /**
+     * 开启后，只在尾部添加或删除child时，之前的行直接沿用，只重新计算最后受影响的行
+     */
+    public void setIncrementalLayout(boolean incrementalLayout) {
+        this.mIncrementalLayout = incrementalLayout;
+        mLineTable.invalidate();
+    }
+
+    /**
+     * 坐标所在的child，x、y与MotionEvent#getX、getY相同，使用onLayout保存的行表二分查找，
+     * 适合拖动多选时在ACTION_MOVE中调用
+     *
+     * @return 不在任何child上时返回null
+     */
+    public View childAt(int x, int y) {
+        return mLineTable.childAt(this, x, y);
+    }
+
+    public int getLineBreakStrategy() {
+        return mLineTable.engine.getLineBreakStrategy();
+    }
+
+    /**
+     * 只对按宽度换行生效：取值见{@link FlowLayout#setLineBreakStrategy(int)}
+     */
+    public void setLineBreakStrategy(int lineBreakStrategy) {
+        mLineTable.engine.setLineBreakStrategy(lineBreakStrategy);
+        mLineTable.invalidate();
+        requestLayout();
+    }
+
+    public boolean isUniformRowHeight() {
+        return mUniformRowHeight;
+    }
+
+    /**
+     * 只在设置了horizontalSize时生效，所有格子的高度与第一个child相同
+     */
+    public void setUniformRowHeight(boolean uniformRowHeight) {
+        this.mUniformRowHeight = uniformRowHeight;
+        mLineTable.invalidate();
+    }
+
+    /**
+     * 每次onMeasure、onLayout之后回调，没有设置时不统计耗时
+     */
+    public void setMetricsListener(FlowMetricsListener metricsListener) {
+        this.mMetricsListener = metricsListener;
+    }
+
+    /**
+     * 开始批量修改child，期间addView、removeView不会触发requestLayout，OnHierarchyChangeListener的回调在endBatch时按顺序补发，
+     * 需要与endBatch成对调用，可以嵌套
+     */
+    public void beginBatch() {
+        mBatch.begin();
+    }
+
+    /**
+     * 结束批量修改，最外层结束时只请求一次布局
+     */
+    public void endBatch() {
+        mBatch.end();
+    }
+
+    /**
+     * 替换所有child，只触发一次布局
+     */
+    public void setChildren(List<? extends View> children) {
+        mBatch.setChildren(children);
+    }
+
+    /**
+     * 在后台线程用factory创建count个child，创建好的child分批添加到末尾，每帧最多占用主线程几毫秒，
+     * 已经添加的行先显示。需要在主线程调用，从窗口移除时暂停添加，重新添加到窗口后继续
+     */
+    public void addChildrenAsync(int count, FlowChildFactory factory) {
+        mAsyncChildren.start(count, factory);
+    }
+
+    public boolean isAddingChildrenAsync() {
+        return mAsyncChildren.isRunning();
+    }
+
+    /**
+     * 停止异步添加，已经添加的child保留
+     */
+    public void cancelAsyncChildren() {
+        mAsyncChildren.cancel();
+    }
+
+    /**
+     * 下一次布局变化以动画过渡：先调用这个方法，再修改spaceH、spaceV、宽度或者增删child。
+     * 只在开始时测量、布局一次，动画过程中通过translation移动child，不再measure和layout
+     */
+    public void animateNextLayout(long duration) {
+        mRelayoutAnimator.prepare(duration);
+    }
+
+    public boolean isAnimatingLayout() {
+        return mRelayoutAnimator.isRunning();
+    }
+
+    /**
+     * 所有显示的child排成一行、不换行时的宽度，包含padding；使用最近一次测量的child大小，不会重新测量child
+     */
+    public int getMaxIntrinsicWidth() {
+        return mLineTable.engine.getMaxContentWidth() + getPaddingLeft() + getPaddingRight();
+    }
+
+    /**
+     * 最宽的一个child的宽度，包含padding，比它更窄时child会超出边界；使用最近一次测量的child大小
+     */
+    public int getMinIntrinsicWidth() {
+        return mLineTable.engine.getMinContentWidth() + getPaddingLeft() + getPaddingRight();
+    }
+
+    @Override
+    public void requestLayout() {
+        //构造过程中父类可能调用requestLayout，此时mBatch还没有初始化
+        if (mBatch != null && mBatch.interceptRequestLayout()) {
+            return;
+        }
+        super.requestLayout();
     }
 
+    @Override
+    public void setOnHierarchyChangeListener(OnHierarchyChangeListener listener) {
+        if (mBatch == null) {
+            super.setOnHierarchyChangeListener(listener);
+            return;
+        }
+        mBatch.setListener(listener);
+    }
+
+    public boolean isMultiChoice() {
+        return mMultiChoice;
+    }
+
+    /**
+     * 开启多选模式，选中状态用position记录；RadioGroup会强制RadioButton单选，
+     * 所以child需要使用CheckBox、ToggleButton等CompoundButton，它们的OnCheckedChangeListener会被group占用
+     */
+    public void setMultiChoice(boolean multiChoice) {
+        if (mMultiChoice == multiChoice) {
+            return;
+        }
+        mMultiChoice = multiChoice;
+        for (int i = 0, count = getChildCount(); i < count; i++) {
+            View child = getChildAt(i);
+            if (isMultiChoiceChild(child)) {
+                ((CompoundButton) child).setOnCheckedChangeListener(multiChoice ? mChildCheckedListener : null);
+            }
+        }
+        mCheckedPositions.clear();
+        mCheckedPositionsDirty = multiChoice;
+    }
+
+    public void setOnCheckedPositionsChangeListener(OnCheckedPositionsChangeListener listener) {
+        this.mOnCheckedPositionsChangeListener = listener;
+    }
+
+    public boolean isPositionChecked(int position) {
+        ensureCheckedPositions();
+        return mCheckedPositions.get(position);
+    }
+
+    public int getCheckedCount() {
+        ensureCheckedPositions();
+        return mCheckedPositions.cardinality();
+    }
+
+    /**
+     * 选中的position，从小到大
+     */
+    public int[] getCheckedPositions() {
+        ensureCheckedPositions();
+        int[] positions = new int[mCheckedPositions.cardinality()];
+        int index = 0;
+        for (int i = mCheckedPositions.nextSetBit(0); i >= 0; i = mCheckedPositions.nextSetBit(i + 1)) {
+            positions[index++] = i;
+        }
+        return positions;
+    }
+
+    /**
+     * 选中所有多选child，只回调一次
+     */
+    public void checkAll() {
+        checkMultiChoice();
+        ensureCheckedPositions();
+        boolean changed = false;
+        for (int i = 0, count = getChildCount(); i < count; i++) {
+            changed |= applyChecked(i, true);
+        }
+        if (changed) {
+            dispatchCheckedPositionsChanged();
+        }
+    }
+
+    /**
+     * 只选中positions，其余全部取消，只回调一次；只会访问状态发生变化的child
+     */
+    public void setChecked(int[] positions) {
+        checkMultiChoice();
+        ensureCheckedPositions();
+        final int count = getChildCount();
+        final BitSet target = mTargetPositions;
+        target.clear();
+        for (int position : positions) {
+            if (position >= 0 && position < count) {
+                target.set(position);
+            }
+        }
+        boolean changed = false;
+        for (int i = mCheckedPositions.nextSetBit(0); i >= 0; i = mCheckedPositions.nextSetBit(i + 1)) {
+            if (!target.get(i)) {
+                changed |= applyChecked(i, false);
+            }
+        }
+        for (int i = target.nextSetBit(0); i >= 0; i = target.nextSetBit(i + 1)) {
+            if (!mCheckedPositions.get(i)) {
+                changed |= applyChecked(i, true);
+            }
+        }
+        if (changed) {
+            dispatchCheckedPositionsChanged();
+        }
+    }
+
+    /**
+     * 多选模式下取消所有选中，只回调一次；单选模式下与RadioGroup相同
+     */
+    @Override
+    public void clearCheck() {
+        if (!mMultiChoice) {
+            super.clearCheck();
+            return;
+        }
+        ensureCheckedPositions();
+        boolean changed = false;
+        for (int i = mCheckedPositions.nextSetBit(0); i >= 0; i = mCheckedPositions.nextSetBit(i + 1)) {
+            changed |= applyChecked(i, false);
+        }
+        if (changed) {
+            dispatchCheckedPositionsChanged();
+        }
+    }
+
+    private void checkMultiChoice() {
+        if (!mMultiChoice) {
+            throw new IllegalStateException("multi choice is disabled, call setMultiChoice(true) first");
+        }
+    }
+
+    private static boolean isMultiChoiceChild(View child) {
+        return child instanceof CompoundButton && !(child instanceof RadioButton);
+    }
+
+    /**
+     * 修改一个child的选中状态，不触发回调
+     *
+     * @return 状态是否发生变化
+     */
+    private boolean applyChecked(int position, boolean checked) {
+        View child = getChildAt(position);
+        if (!isMultiChoiceChild(child)) {
+            mCheckedPositions.clear(position);
+            return false;
+        }
+        mCheckedPositions.set(position, checked);
+        CompoundButton button = (CompoundButton) child;
+        if (button.isChecked() == checked) {
+            return false;
+        }
+        mProtectFromCheckedChange = true;
+        button.setChecked(checked);
+        mProtectFromCheckedChange = false;
+        return true;
+    }
+
+    private void ensureCheckedPositions() {
+        if (!mCheckedPositionsDirty) {
+            return;
+        }
+        mCheckedPositions.clear();
+        for (int i = 0, count = getChildCount(); i < count; i++) {
+            View child = getChildAt(i);
+            if (isMultiChoiceChild(child) && ((CompoundButton) child).isChecked()) {
+                mCheckedPositions.set(i);
+            }
+        }
+        mCheckedPositionsDirty = false;
+    }
+
+    private void dispatchCheckedPositionsChanged() {
+        if (mOnCheckedPositionsChangeListener != null) {
+            mOnCheckedPositionsChangeListener.onCheckedPositionsChanged(this);
+        }
+    }
+
+    /**
+     * 多选模式下选中状态变化时回调，批量操作只回调一次，通过getCheckedPositions获取结果
+     */
+    public interface OnCheckedPositionsChangeListener {
+        void onCheckedPositionsChanged(FlowRadioGroup group);
+    }
+
+    public FlowAdapter getAdapter() {
+        return mAdapterBinder.getAdapter();
+    }
+
+    /**
+     * 设置Adapter之后由Adapter管理所有child，数据变化时复用已有child，不要再手动addView
+     */
+    public void setAdapter(FlowAdapter adapter) {
+        mAdapterBinder.setAdapter(adapter);
+    }
+
+    public FlowViewPool getViewPool() {
+        return mAdapterBinder.getPool();
+    }
+
+    /**
+     * 多个FlowLayout、FlowRadioGroup可以共享同一个缓存池
+     */
+    public void setViewPool(FlowViewPool pool) {
+        mAdapterBinder.setPool(pool);
+    }
+
+    /**
+     * 应用{@link FlowTextMeasurer}预先测量的结果：按顺序设置child的文字和宽高，
+     * 之后的onMeasure中child以确定的宽高测量，不需要再测量文字；有行间距时高度为WRAP_CONTENT，由child测量
+     */
+    public void applyMeasuredText(FlowTextMeasurer.Result result) {
+        int count = Math.min(getChildCount(), result.size());
+        for (int i = 0; i < count; i++) {
+            View child = getChildAt(i);
+            if (child instanceof TextView) {
+                ((TextView) child).setText(result.getText(i));
+            }
+            ViewGroup.LayoutParams lp = child.getLayoutParams();
+            lp.width = result.getWidth(i);
+            lp.height = result.getHeight(i);
+        }
+        mLineTable.invalidate();
+        requestLayout();
+    }
+
+    /**
+     * onMeasure、onLayout在动画中每帧都可能执行，不能分配任何对象（装箱、临时LayoutParams、迭代器），
+     * 数组只在child数量增加时扩容，见FlowLayoutAllocationTest
+     */
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        FlowTrace.beginSection("FlowRadioGroup#onMeasure");
+        final long start = mMetricsListener != null ? System.nanoTime() : 0;
+        mMeasuredChildCount = 0;
+        measureFlow(widthMeasureSpec, heightMeasureSpec);
+        if (mMetricsListener != null) {
+            final int childCount = getChildCount();
+            mMetricsListener.onMeasure(this, childCount, mLineTable.engine.getLineCount(),
+                    mMeasuredChildCount, childCount - mMeasuredChildCount, System.nanoTime() - start);
+        }
+        FlowTrace.endSection();
+    }
+
+    private void measureFlow(int widthMeasureSpec, int heightMeasureSpec) {
         //获取宽度
         int widthMode = MeasureSpec.getMode(widthMeasureSpec);
         int widthSize = MeasureSpec.getSize(widthMeasureSpec);
@@ -79,15 +561,24 @@ public class FlowRadioGroup extends RadioGroup {
         int heightMode = MeasureSpec.getMode(heightMeasureSpec);
         int heightSize = MeasureSpec.getSize(heightMeasureSpec);
 
-        int x = getPaddingLeft() + getPaddingRight();
-        int y = getPaddingTop() + getPaddingBottom();
-        int itemMaxHeight = 0;
-        for (int i = 0; i < getChildCount(); i++) {
+        final FlowLineTable table = mLineTable;
+        final FlowLayoutEngine engine = table.engine;
+        final int childCount = getChildCount();
+        engine.setColumns(mHorizontalSize);
+        table.beginPass(this, widthMeasureSpec, heightMeasureSpec, mSpaceH, mSpaceV, mIncrementalLayout, true);
+        //使用了之前这个宽度的结果时，child按原来的方式测量（通常命中View自身的测量缓存），不再换行计算
+        final boolean restored = table.restored;
+        final int childWidthMeasureSpec = table.childWidthMeasureSpec;
+        final boolean uniform = mUniformRowHeight && mHorizontalSize != 0;
+        if (table.firstDirtyChild == 0) {
+            mRowHeight = 0;
+        }
+
+        for (int i = table.firstDirtyChild; i < childCount; i++) {
             final View child = getChildAt(i);
             if (child.getVisibility() != View.GONE) {
                 ViewGroup.LayoutParams lp = child.getLayoutParams();
 
-                int cw, ch, cwMargin = 0, chMargin = 0;
                 if (lp instanceof MarginLayoutParams) {
                     MarginLayoutParams childLP = (MarginLayoutParams) lp;
                     /**
@@ -95,45 +586,54 @@ public class FlowRadioGroup extends RadioGroup {
                      * 这个widthUsed和heightUsed,当前横 纵已经使用了长度，一般用于设置权重之后，计算剩余可以摆放的位置，只用传0就可以，
                      * 可以看{@link android.widget.LinearLayout#measureHorizontal（1018行，1117行）和measureChildBeforeLayout}
                      */
-                    measureChildWithMargins(child, widthMeasureSpec, 0, heightMeasureSpec, 0);
-                    cwMargin = childLP.leftMargin + childLP.rightMargin;
-                    chMargin = childLP.topMargin + childLP.bottomMargin;
+                    if (uniform && mRowHeight > 0) {
+                        measureUniformChild(child, engine.getCellWidth(), childLP.leftMargin + childLP.rightMargin, childLP.topMargin + childLP.bottomMargin);
+                    } else {
+                        measureChildWithMargins(child, childWidthMeasureSpec, 0, heightMeasureSpec, 0);
+                    }
+                    if (!restored) {
+                        engine.add(i, child.getMeasuredWidth(), child.getMeasuredHeight(),
+                                childLP.leftMargin, childLP.topMargin, childLP.rightMargin, childLP.bottomMargin);
+                    }
                 } else {
-                    measureChild(child, widthMeasureSpec, heightMeasureSpec);
-                }
-
-                cw = child.getMeasuredWidth() + cwMargin;
-                ch = child.getMeasuredHeight() + chMargin;
-
-
-                if (itemMaxHeight < ch) {
-                    if (itemMaxHeight == 0) {
-                        //计算每添加一个子空间时的宽度，如果当前计算的宽度大于了父控件的宽度，这就需要换行
-                        //每一行的高度以当前行最大的item为准
-                        y += ch;
+                    if (uniform && mRowHeight > 0) {
+                        measureUniformChild(child, engine.getCellWidth(), 0, 0);
                     } else {
-                        y += ch - itemMaxHeight;
+                        measureChild(child, childWidthMeasureSpec, heightMeasureSpec);
+                    }
+                    if (!restored) {
+                        engine.add(i, child.getMeasuredWidth(), child.getMeasuredHeight(), 0, 0, 0, 0);
                     }
-                    itemMaxHeight = ch;
                 }
-                x += cw;
-                if (x > widthSize) {
-                    itemMaxHeight = ch;
-                    y += itemMaxHeight;
-                    y += mSpaceV;
-                    x = getPaddingLeft() + getPaddingRight();
-                    x += cw;
+                if (uniform && mRowHeight == 0) {
+                    mRowHeight = engine.getLineHeight(engine.lineOf(i));
                 }
-                x += mSpaceH;
+            } else if (!restored) {
+                engine.skip(i);
             }
         }
 
-        //实际计算得出的宽高
-        int measureWidth = widthSize;
-        int measureHeight = heightMode == MeasureSpec.EXACTLY ? heightSize : y;
+        if (!restored) {
+            engine.end();
+        }
+        table.endPass(this);
+
+        //实际计算得出的宽高，宽度为wrap_content时取最宽的一行，固定列数时占满可用宽度
+        int measureWidth = table.resolveWidth(widthMeasureSpec, engine.getContentRight(), getPaddingRight());
+        int measureHeight = heightMode == MeasureSpec.EXACTLY ? heightSize : engine.getContentBottom() + getPaddingBottom();
         setMeasuredDimension(measureWidth, measureHeight);
     }
 
+    /**
+     * 统一行高时，child直接使用格子宽度和第一个child的高度，不再根据内容测量高度
+     */
+    private void measureUniformChild(View child, int cellWidth, int horizontalMargin, int verticalMargin) {
+        int childWidthMeasureSpec = MeasureSpec.makeMeasureSpec(Math.max(0, cellWidth - horizontalMargin), MeasureSpec.EXACTLY);
+        int childHeightMeasureSpec = MeasureSpec.makeMeasureSpec(Math.max(0, mRowHeight - verticalMargin), MeasureSpec.EXACTLY);
+        child.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+        mMeasuredChildCount++;
+    }
+
     @Override
     protected void measureChildWithMargins(View child, int parentWidthMeasureSpec, int widthUsed, int parentHeightMeasureSpec, int heightUsed) {
         final MarginLayoutParams lp = (MarginLayoutParams) child.getLayoutParams();
@@ -155,6 +655,7 @@ public class FlowRadioGroup extends RadioGroup {
                 getPaddingTop() + getPaddingBottom() + lp.topMargin + lp.bottomMargin
                         + heightUsed, lp.height);
         child.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+        mMeasuredChildCount++;
     }
 
     @Override
@@ -178,64 +679,48 @@ public class FlowRadioGroup extends RadioGroup {
                 getPaddingTop() + getPaddingBottom(), lp.height);
 
         child.measure(childWidthMeasureSpec, childHeightMeasureSpec);
+        mMeasuredChildCount++;
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mAsyncChildren.resume();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mRelayoutAnimator.cancel();
+        //不再显示时暂停添加，重新添加到窗口后继续；不再需要时调用cancelAsyncChildren
+        mAsyncChildren.pause();
     }
 
     @Override
     protected void onLayout(boolean changed, int l, int t, int r, int b) {
-        int measureWidth = getMeasuredWidth();
-        int left = getPaddingLeft();
-        int top = getPaddingTop();
-        int itemMaxHeight = 0;
+        FlowTrace.beginSection("FlowRadioGroup#onLayout");
+        final long start = mMetricsListener != null ? System.nanoTime() : 0;
+        final int layoutStart = Math.min(mLineTable.layoutStart, mLineTable.childCount);
+        layoutFlow();
+        mLineTable.layoutDone();
+        mRelayoutAnimator.onLayout();
+        if (mMetricsListener != null) {
+            mMetricsListener.onLayout(this, getChildCount(), mLineTable.engine.getLineCount(),
+                    Math.max(0, Math.min(getChildCount(), mLineTable.childCount) - layoutStart), System.nanoTime() - start);
+        }
+        FlowTrace.endSection();
+    }
 
-        int childCount = getChildCount();
-        for (int i = 0; i < childCount; i++) {
+    private void layoutFlow() {
+        //位置已经在onMeasure中计算好，这里只做回放，沿用的行不需要重新layout
+        final FlowLineTable table = mLineTable;
+        int childCount = Math.min(getChildCount(), table.childCount);
+        for (int i = table.layoutStart; i < childCount; i++) {
             View child = getChildAt(i);
             if (child.getVisibility() != GONE) {
-                //判断当前行最后一个left+child.getMeasuredWidth()，是否大于父控件的宽度，如果大于换行
-
-                ViewGroup.LayoutParams lp = child.getLayoutParams();
-
-                int leftMargin = 0, topMargin = 0, rightMargin = 0, bottomMargin = 0;
-
-                if (lp instanceof MarginLayoutParams) {
-                    MarginLayoutParams childLP = (MarginLayoutParams) lp;
-                    leftMargin = childLP.leftMargin;
-                    topMargin = childLP.topMargin;
-                    rightMargin = childLP.rightMargin;
-                    bottomMargin = childLP.bottomMargin;
-                }
-                int cl, ct, cr, cb;
-
-                cl = left + leftMargin;
-                ct = top + topMargin;
-                cr = cl + child.getMeasuredWidth();
-                cb = ct + child.getMeasuredHeight();
-
-                int ch = child.getMeasuredHeight() + topMargin + bottomMargin;
-
-                if (itemMaxHeight < ch) {
-                    itemMaxHeight = ch;
-                }
-
-                if (cr + rightMargin > measureWidth - getPaddingRight()) {
-                    //行数++,+纵向间隙，left恢复为原来值
-                    left = getPaddingLeft();
-
-                    top += itemMaxHeight;
-                    top += mSpaceV;
-
-                    itemMaxHeight = ch;
-
-                    cl = left + leftMargin;
-                    ct = top + topMargin;
-                    cr = cl + child.getMeasuredWidth();
-                    cb = ct + child.getMeasuredHeight();
-                }
-
-                child.layout(cl, ct, cr, cb);
-
-                left = cr + rightMargin;
-                left += mSpaceH;
+                int cl = table.engine.getChildLeft(i);
+                int ct = table.engine.getChildTop(i);
+                child.layout(cl, ct, cl + child.getMeasuredWidth(), ct + child.getMeasuredHeight());
             }
         }
     }
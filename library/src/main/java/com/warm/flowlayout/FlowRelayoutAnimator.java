@@ -0,0 +1,168 @@
+package com.warm.flowlayout;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.Arrays;
+
+/**
+ * 作者：warm
+ * 时间：2026-10-18
+ * 描述：布局变化的过渡动画。{@link #prepare}时记录child当前的位置，下一次onLayout之后child已经在最终位置，
+ * 用translation把child移回原来的位置，再由一个ValueAnimator把translation插值到0；
+ * 动画过程中不需要requestLayout，也没有measure。FlowLayout和FlowRadioGroup共用。
+ * 动画期间child的translationX、translationY由这里控制。
+ */
+final class FlowRelayoutAnimator implements ValueAnimator.AnimatorUpdateListener {
+
+    private final ViewGroup mHost;
+
+    private long mDuration;
+
+    /**
+     * 已经记录了起始位置，等待下一次onLayout
+     */
+    private boolean mPending;
+
+    private View[] mChildren = new View[0];
+    private int mCount;
+
+    /**
+     * prepare时child显示的left、top；onLayout之后为起始位置与最终位置的差
+     */
+    private int[] mDx = new int[0];
+    private int[] mDy = new int[0];
+
+    private ValueAnimator mAnimator;
+
+    FlowRelayoutAnimator(ViewGroup host) {
+        mHost = host;
+    }
+
+    boolean isRunning() {
+        return mPending || (mAnimator != null && mAnimator.isRunning());
+    }
+
+    /**
+     * 记录child当前显示的位置，正在播放的动画从当前帧继续
+     */
+    void prepare(long duration) {
+        final boolean running = mAnimator != null && mAnimator.isRunning();
+        final int count = mHost.getChildCount();
+        if (mChildren.length < count) {
+            mChildren = new View[count];
+            mDx = new int[count];
+            mDy = new int[count];
+        }
+        for (int i = 0; i < count; i++) {
+            View child = mHost.getChildAt(i);
+            //GONE的child没有有效的位置，显示出来时直接出现在最终位置
+            mChildren[i] = child.getVisibility() == View.GONE ? null : child;
+            if (running && mChildren[i] == null) {
+                child.setTranslationX(0);
+                child.setTranslationY(0);
+            }
+            mDx[i] = child.getLeft() + Math.round(child.getTranslationX());
+            mDy[i] = child.getTop() + Math.round(child.getTranslationY());
+        }
+        clearChildren(count, mCount);
+        mCount = count;
+        if (mAnimator != null) {
+            mAnimator.removeAllListeners();
+            mAnimator.cancel();
+        }
+        mDuration = duration;
+        mPending = true;
+        mHost.requestLayout();
+    }
+
+    /**
+     * 在onLayout之后调用，child已经在最终位置
+     */
+    void onLayout() {
+        if (!mPending) {
+            return;
+        }
+        mPending = false;
+        boolean moved = false;
+        for (int i = 0; i < mCount; i++) {
+            View child = mChildren[i];
+            if (child == null) {
+                continue;
+            }
+            if (child.getParent() != mHost || child.getVisibility() == View.GONE) {
+                //已经移除或者隐藏的child不参与动画
+                mChildren[i] = null;
+                continue;
+            }
+            mDx[i] -= child.getLeft();
+            mDy[i] -= child.getTop();
+            child.setTranslationX(mDx[i]);
+            child.setTranslationY(mDy[i]);
+            moved |= mDx[i] != 0 || mDy[i] != 0;
+        }
+        if (!moved) {
+            finish();
+            return;
+        }
+        if (mAnimator == null) {
+            mAnimator = ValueAnimator.ofFloat(1f, 0f);
+            mAnimator.addUpdateListener(this);
+        }
+        mAnimator.setDuration(mDuration);
+        mAnimator.addListener(new AnimatorListenerAdapter() {
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                animation.removeListener(this);
+                finish();
+            }
+        });
+        mAnimator.start();
+    }
+
+    /**
+     * 立即结束动画，child回到最终位置
+     */
+    void cancel() {
+        mPending = false;
+        if (mAnimator != null) {
+            mAnimator.removeAllListeners();
+            mAnimator.cancel();
+        }
+        finish();
+    }
+
+    @Override
+    public void onAnimationUpdate(ValueAnimator animation) {
+        final float fraction = (Float) animation.getAnimatedValue();
+        for (int i = 0; i < mCount; i++) {
+            View child = mChildren[i];
+            if (child != null) {
+                child.setTranslationX(mDx[i] * fraction);
+                child.setTranslationY(mDy[i] * fraction);
+            }
+        }
+    }
+
+    private void finish() {
+        for (int i = 0; i < mCount; i++) {
+            View child = mChildren[i];
+            if (child != null) {
+                child.setTranslationX(0);
+                child.setTranslationY(0);
+            }
+        }
+        clearChildren(0, mCount);
+        mCount = 0;
+    }
+
+    private void clearChildren(int from, int to) {
+        if (from < to) {
+            Arrays.fill(mChildren, from, to, null);
+        }
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.warm.flowlayout;
+
+import android.annotation.TargetApi;
+import android.graphics.Paint;
+import android.os.AsyncTask;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Layout;
+import android.text.PrecomputedText;
+import android.text.TextPaint;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * 作者：warm
+ * 时间：2026-10-18
+ * 描述：在后台线程预先测量单行标签的文字，结果通过{@link FlowRadioGroup#applyMeasuredText(Result)}
+ * 设置给child，child测量时宽高已经确定，不需要在主线程onMeasure里再测量文字。
+ * API 28及以上使用PrecomputedText，child直接复用测量好的文字。
+ * 所有child需要与构造时传入的prototype使用相同的文字样式。
+ * prototype设置了行间距时，单行文字是否加上行间距随系统版本不同，只预先测量宽度，高度仍由child自己测量。
+ */
+public final class FlowTextMeasurer {
+
+    public interface Callback {
+        void onMeasured(Result result);
+    }
+
+    private final TextPaint mPaint;
+
+    /**
+     * 文字之外的宽高：padding和compound drawable
+     */
+    private final int mExtraWidth;
+    private final int mExtraHeight;
+    private final int mMinWidth;
+    private final int mMinHeight;
+    private final boolean mIncludePad;
+
+    /**
+     * 行间距不是默认值，高度不能只按字体计算
+     */
+    private final boolean mHasLineSpacing;
+
+    /**
+     * PrecomputedText.Params，低版本上为null
+     */
+    private final Object mTextParams;
+
+    private final Executor mExecutor;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    public FlowTextMeasurer(TextView prototype) {
+        this(prototype, AsyncTask.THREAD_POOL_EXECUTOR);
+    }
+
+    /**
+     * 需要在主线程调用，从prototype中读取文字样式
+     */
+    public FlowTextMeasurer(TextView prototype, Executor executor) {
+        mPaint = new TextPaint(prototype.getPaint());
+        mExtraWidth = prototype.getCompoundPaddingLeft() + prototype.getCompoundPaddingRight();
+        mExtraHeight = prototype.getCompoundPaddingTop() + prototype.getCompoundPaddingBottom();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mMinWidth = prototype.getMinimumWidth();
+            mMinHeight = prototype.getMinimumHeight();
+            mIncludePad = prototype.getIncludeFontPadding();
+            mHasLineSpacing = prototype.getLineSpacingExtra() != 0 || prototype.getLineSpacingMultiplier() != 1;
+        } else {
+            mMinWidth = 0;
+            mMinHeight = 0;
+            mIncludePad = true;
+            mHasLineSpacing = false;
+        }
+        mTextParams = Build.VERSION.SDK_INT >= Build.VERSION_CODES.P ? prototype.getTextMetricsParams() : null;
+        mExecutor = executor;
+    }
+
+    /**
+     * 在后台线程测量，完成后在主线程回调
+     */
+    public void measure(List<? extends CharSequence> labels, final Callback callback) {
+        final CharSequence[] texts = labels.toArray(new CharSequence[labels.size()]);
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Result result = measureNow(texts);
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onMeasured(result);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 在当前线程测量
+     */
+    public Result measureNow(CharSequence[] labels) {
+        final int count = labels.length;
+        CharSequence[] texts = new CharSequence[count];
+        int[] widths = new int[count];
+        int[] heights = new int[count];
+
+        Paint.FontMetricsInt fm = mPaint.getFontMetricsInt();
+        int lineHeight = mIncludePad ? fm.bottom - fm.top : fm.descent - fm.ascent;
+        int height = mHasLineSpacing ? ViewGroup.LayoutParams.WRAP_CONTENT : Math.max(mMinHeight, lineHeight + mExtraHeight);
+
+        for (int i = 0; i < count; i++) {
+            float textWidth;
+            if (mTextParams != null) {
+                PrecomputedText precomputed = precompute(labels[i]);
+                texts[i] = precomputed;
+                textWidth = precomputed.getWidth(0, precomputed.length());
+            } else {
+                texts[i] = labels[i];
+                textWidth = Layout.getDesiredWidth(labels[i], mPaint);
+            }
+            widths[i] = Math.max(mMinWidth, (int) Math.ceil(textWidth) + mExtraWidth);
+            heights[i] = height;
+        }
+        return new Result(texts, widths, heights);
+    }
+
+    @TargetApi(Build.VERSION_CODES.P)
+    private PrecomputedText precompute(CharSequence text) {
+        return PrecomputedText.create(text, (PrecomputedText.Params) mTextParams);
+    }
+
+    public static final class Result {
+
+        private final CharSequence[] mTexts;
+        private final int[] mWidths;
+        private final int[] mHeights;
+
+        Result(CharSequence[] texts, int[] widths, int[] heights) {
+            mTexts = texts;
+            mWidths = widths;
+            mHeights = heights;
+        }
+
+        public int size() {
+            return mTexts.length;
+        }
+
+        /**
+         * API 28及以上为PrecomputedText
+         */
+        public CharSequence getText(int index) {
+            return mTexts[index];
+        }
+
+        public int getWidth(int index) {
+            return mWidths[index];
+        }
+
+        /**
+         * prototype设置了行间距时为WRAP_CONTENT
+         */
+        public int getHeight(int index) {
+            return mHeights[index];
+        }
+    }
+
+}
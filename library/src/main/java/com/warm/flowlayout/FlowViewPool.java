@@ -0,0 +1,66 @@
+package com.warm.flowlayout;
+
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+import android.view.View;
+
+import java.util.ArrayList;
+
+/**
+ * 作者：warm
+ * 时间：2026-10-18
+ * 描述：按viewType缓存被移除的child，可以在多个FlowLayout、FlowRadioGroup之间共享
+ */
+public class FlowViewPool {
+
+    private static final int DEFAULT_MAX_SCRAP = 64;
+
+    private final SparseArray<ArrayList<View>> mScrap = new SparseArray<>();
+
+    private final SparseIntArray mMaxScrap = new SparseIntArray();
+
+    /**
+     * 设置某个viewType最多缓存多少个view
+     */
+    public void setMaxRecycledViews(int viewType, int max) {
+        mMaxScrap.put(viewType, max);
+        ArrayList<View> scrap = mScrap.get(viewType);
+        if (scrap != null) {
+            while (scrap.size() > max) {
+                scrap.remove(scrap.size() - 1);
+            }
+        }
+    }
+
+    public View getRecycledView(int viewType) {
+        ArrayList<View> scrap = mScrap.get(viewType);
+        if (scrap == null || scrap.isEmpty()) {
+            return null;
+        }
+        return scrap.remove(scrap.size() - 1);
+    }
+
+    /**
+     * view必须已经从parent中移除
+     */
+    public void putRecycledView(int viewType, View view) {
+        ArrayList<View> scrap = mScrap.get(viewType);
+        if (scrap == null) {
+            scrap = new ArrayList<>();
+            mScrap.put(viewType, scrap);
+        }
+        if (scrap.size() < mMaxScrap.get(viewType, DEFAULT_MAX_SCRAP)) {
+            scrap.add(view);
+        }
+    }
+
+    public int getRecycledViewCount(int viewType) {
+        ArrayList<View> scrap = mScrap.get(viewType);
+        return scrap == null ? 0 : scrap.size();
+    }
+
+    public void clear() {
+        mScrap.clear();
+    }
+
+}
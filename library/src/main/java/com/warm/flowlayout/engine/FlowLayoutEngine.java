@@ -0,0 +1,796 @@
+package com.warm.flowlayout.engine;
+
+import java.util.Arrays;
+
+/**
+ * 作者：warm
+ * 时间：2026-10-18
+ * 描述：与Android无关的换行计算，FlowLayout、FlowRadioGroup、FlowLayoutManager共用，
+ * 也可以直接在JVM上做单元测试和性能测试。
+ * <p>
+ * 换行规则：当前行已有child，且放不下当前child时换行；行高以当前行最大的child为准。
+ * 设置了固定列数时，按可见child的序号直接得到行和列，不再比较宽度。
+ * 按宽度换行时可以设置{@link #setLineBreakStrategy}，在{@link #end()}中调整。
+ * <p>
+ * 两种用法：
+ * 1、{@link #begin(int)}之后按顺序对每个child调用{@link #add}或{@link #skip}，最后调用{@link #end()}，适合边测量边计算；
+ * 2、直接传入宽高和margin数组调用{@link #compute}。
+ * <p>
+ * 数组容量足够之后，计算过程不分配任何对象，见FlowLayoutEngineAllocationTest。
+ */
+public final class FlowLayoutEngine {
+
+    /**
+     * 数组方式计算时，宽度为GONE的child不参与计算
+     */
+    public static final int GONE = -1;
+
+    /**
+     * 超出最大行数，child不显示
+     */
+    public static final int NO_LINE = -1;
+
+    /**
+     * 换行策略：放不下就换行；同样的换行，把每行（最后一行除外）剩余的宽度平均分到间隙中；
+     * 行数不变，重新选择换行位置，使各行剩余宽度尽量接近
+     */
+    public static final int BREAK_GREEDY = 0;
+    public static final int BREAK_JUSTIFIED = 1;
+    public static final int BREAK_BALANCED = 2;
+
+    /**
+     * 均衡换行时一行最多考虑的child个数，计算量为O(child个数 * BALANCE_WINDOW)
+     */
+    private static final int BALANCE_WINDOW = 64;
+
+    /**
+     * 均衡换行结果按可用宽度缓存的个数
+     */
+    private static final int BALANCE_CACHE_SIZE = 4;
+
+    /**
+     * 横向间隙、纵向间隙
+     */
+    private int mSpaceH;
+    private int mSpaceV;
+
+    /**
+     * 可用宽度和padding
+     */
+    private int mPaddingLeft;
+    private int mPaddingTop;
+    private int mMaxRight;
+
+    /**
+     * 最大行数，0表示不限制
+     */
+    private int mMaxLines;
+
+    /**
+     * 固定列数，0表示按宽度换行；每个格子包含margin的宽度；当前是第几个可见child
+     */
+    private int mColumns;
+    private int mCellWidth;
+    private int mGridIndex;
+
+    private int mLineBreakStrategy = BREAK_GREEDY;
+
+    /**
+     * 第一个超出最大行数的child，没有超出时为-1
+     */
+    private int mOverflowStart = -1;
+
+    /**
+     * 已经计算到的child个数
+     */
+    private int mChildEnd;
+
+    /**
+     * 当前行的状态
+     */
+    private int mLeft;
+    private int mTop;
+    private int mLineChildCount;
+
+    /**
+     * 行表：每行第一个child的index、行的top、行高
+     */
+    private int mLineCount;
+    private int[] mLineStarts = new int[0];
+    private int[] mLineTops = new int[0];
+    private int[] mLineHeights = new int[0];
+
+    /**
+     * 每个child的left、top（已包含padding和margin）
+     */
+    private int[] mChildLefts = new int[0];
+    private int[] mChildTops = new int[0];
+
+    /**
+     * 每个child包含margin的宽高，以及leftMargin；被跳过的child宽度为GONE
+     */
+    private int[] mChildWidths = new int[0];
+    private int[] mChildHeights = new int[0];
+    private int[] mChildLeftMargins = new int[0];
+
+    /**
+     * 均衡换行的临时数组：可见child的index、到每个child为止的最小代价、对应的行首
+     */
+    private int[] mVisible = new int[0];
+    private long[] mBreakCosts = new long[0];
+    private int[] mBreakStarts = new int[0];
+
+    /**
+     * 最近使用的均衡换行结果，下标0最新
+     */
+    private final BalanceResult[] mBalanceCache = new BalanceResult[BALANCE_CACHE_SIZE];
+
+    public void setSpace(int spaceH, int spaceV) {
+        mSpaceH = spaceH;
+        mSpaceV = spaceV;
+    }
+
+    /**
+     * @param width 父控件的宽度，包含padding
+     */
+    public void setBounds(int width, int paddingLeft, int paddingTop, int paddingRight) {
+        mPaddingLeft = paddingLeft;
+        mPaddingTop = paddingTop;
+        mMaxRight = width - paddingRight;
+    }
+
+    public int getMaxLines() {
+        return mMaxLines;
+    }
+
+    /**
+     * @param maxLines 0表示不限制
+     */
+    public void setMaxLines(int maxLines) {
+        mMaxLines = maxLines;
+    }
+
+    public int getColumns() {
+        return mColumns;
+    }
+
+    /**
+     * @param columns 0表示按宽度换行
+     */
+    public void setColumns(int columns) {
+        mColumns = columns;
+    }
+
+    public int getLineBreakStrategy() {
+        return mLineBreakStrategy;
+    }
+
+    /**
+     * 只对按宽度换行生效；超出最大行数时按BREAK_GREEDY处理
+     *
+     * @param strategy BREAK_GREEDY、BREAK_JUSTIFIED、BREAK_BALANCED
+     */
+    public void setLineBreakStrategy(int strategy) {
+        mLineBreakStrategy = strategy;
+    }
+
+    /**
+     * 固定列数时每个格子包含margin的宽度，begin之后有效
+     */
+    public int getCellWidth() {
+        return mCellWidth;
+    }
+
+    /**
+     * 保证可以容纳count个child，已有的结果会被保留
+     */
+    public void ensureChildCapacity(int count) {
+        if (mChildLefts.length < count) {
+            int capacity = Math.max(count, mChildLefts.length * 2);
+            mChildLefts = Arrays.copyOf(mChildLefts, capacity);
+            mChildTops = Arrays.copyOf(mChildTops, capacity);
+            mChildWidths = Arrays.copyOf(mChildWidths, capacity);
+            mChildHeights = Arrays.copyOf(mChildHeights, capacity);
+            mChildLeftMargins = Arrays.copyOf(mChildLeftMargins, capacity);
+        }
+    }
+
+    /**
+     * 间隙、边界、最大行数、列数和换行策略是否与other相同，相同时同样大小的child得到同样的结果
+     */
+    public boolean hasSameSettings(FlowLayoutEngine other) {
+        return mSpaceH == other.mSpaceH && mSpaceV == other.mSpaceV
+                && mPaddingLeft == other.mPaddingLeft && mPaddingTop == other.mPaddingTop
+                && mMaxRight == other.mMaxRight && mMaxLines == other.mMaxLines
+                && mColumns == other.mColumns && mLineBreakStrategy == other.mLineBreakStrategy;
+    }
+
+    /**
+     * 复制other的全部结果，用于缓存一次计算
+     */
+    public void copyFrom(FlowLayoutEngine other) {
+        mSpaceH = other.mSpaceH;
+        mSpaceV = other.mSpaceV;
+        mPaddingLeft = other.mPaddingLeft;
+        mPaddingTop = other.mPaddingTop;
+        mMaxRight = other.mMaxRight;
+        mMaxLines = other.mMaxLines;
+        mColumns = other.mColumns;
+        mLineBreakStrategy = other.mLineBreakStrategy;
+        mCellWidth = other.mCellWidth;
+        mGridIndex = other.mGridIndex;
+        mOverflowStart = other.mOverflowStart;
+        mChildEnd = other.mChildEnd;
+        mLeft = other.mLeft;
+        mTop = other.mTop;
+        mLineChildCount = other.mLineChildCount;
+
+        final int childEnd = other.mChildEnd;
+        ensureChildCapacity(childEnd);
+        System.arraycopy(other.mChildLefts, 0, mChildLefts, 0, childEnd);
+        System.arraycopy(other.mChildTops, 0, mChildTops, 0, childEnd);
+        System.arraycopy(other.mChildWidths, 0, mChildWidths, 0, childEnd);
+        System.arraycopy(other.mChildHeights, 0, mChildHeights, 0, childEnd);
+        System.arraycopy(other.mChildLeftMargins, 0, mChildLeftMargins, 0, childEnd);
+
+        final int lineCount = other.mLineCount;
+        if (mLineStarts.length < lineCount) {
+            mLineStarts = new int[lineCount];
+            mLineTops = new int[lineCount];
+            mLineHeights = new int[lineCount];
+        }
+        System.arraycopy(other.mLineStarts, 0, mLineStarts, 0, lineCount);
+        System.arraycopy(other.mLineTops, 0, mLineTops, 0, lineCount);
+        System.arraycopy(other.mLineHeights, 0, mLineHeights, 0, lineCount);
+        mLineCount = lineCount;
+    }
+
+    /**
+     * 从resumeLine开始重新计算，之前的行保持不变；resumeLine为0时完整计算
+     */
+    public void begin(int resumeLine) {
+        mLineCount = resumeLine;
+        mTop = resumeLine == 0 ? mPaddingTop : mLineTops[resumeLine];
+        mLeft = mPaddingLeft;
+        mLineChildCount = 0;
+        mOverflowStart = -1;
+        mChildEnd = resumeLine == 0 ? 0 : mLineStarts[resumeLine];
+        mGridIndex = resumeLine * mColumns;
+        mCellWidth = mColumns > 0 ? (mMaxRight - mPaddingLeft - (mColumns - 1) * mSpaceH) / mColumns : 0;
+    }
+
+    /**
+     * 按顺序添加一个可见child
+     *
+     * @return child所在的行，超出最大行数时返回NO_LINE，之后添加的child也都不再显示
+     */
+    public int add(int index, int width, int height, int leftMargin, int topMargin, int rightMargin, int bottomMargin) {
+        if (mOverflowStart >= 0) {
+            return NO_LINE;
+        }
+        final int cw = width + leftMargin + rightMargin;
+        final int ch = height + topMargin + bottomMargin;
+
+        final int column = mColumns > 0 ? mGridIndex % mColumns : 0;
+        final boolean newLine = mColumns > 0 ? column == 0 : mLineChildCount == 0 || mLeft + cw > mMaxRight;
+        if (newLine) {
+            if (mMaxLines > 0 && mLineCount >= mMaxLines) {
+                mOverflowStart = index;
+                return NO_LINE;
+            }
+            if (mLineChildCount > 0) {
+                mTop += mLineHeights[mLineCount - 1] + mSpaceV;
+                mLineChildCount = 0;
+            }
+            mLeft = mPaddingLeft;
+            addLine(index, mTop);
+        }
+        if (mColumns > 0) {
+            mLeft = mPaddingLeft + column * (mCellWidth + mSpaceH);
+            mGridIndex++;
+        }
+
+        final int line = mLineCount - 1;
+        mChildLefts[index] = mLeft + leftMargin;
+        mChildTops[index] = mTop + topMargin;
+        mChildWidths[index] = cw;
+        mChildHeights[index] = ch;
+        mChildLeftMargins[index] = leftMargin;
+        mChildEnd = index + 1;
+        mLeft += (mColumns > 0 ? mCellWidth : cw) + mSpaceH;
+        mLineChildCount++;
+        if (mLineHeights[line] < ch) {
+            mLineHeights[line] = ch;
+        }
+        return line;
+    }
+
+    /**
+     * 按顺序跳过一个不参与计算的child（GONE）
+     */
+    public void skip(int index) {
+        //left保持行内递增，childIndexAt可以二分查找；还没有开始新行时放在上一行的末尾
+        mChildLefts[index] = mLineChildCount > 0 ? mLeft : Integer.MAX_VALUE;
+        mChildWidths[index] = GONE;
+        mChildEnd = index + 1;
+    }
+
+    /**
+     * 所有child添加完之后调用，按换行策略调整行和位置；需要在reserveOverflow之前调用
+     */
+    public void end() {
+        if (mLineBreakStrategy == BREAK_GREEDY || mColumns > 0 || mOverflowStart >= 0 || mLineCount < 2) {
+            return;
+        }
+        toTopMargins();
+        if (mLineBreakStrategy == BREAK_BALANCED) {
+            balance();
+        }
+        relayout(mLineBreakStrategy == BREAK_JUSTIFIED);
+    }
+
+    /**
+     * 超出最大行数时，在最后一行末尾给“+N”之类的提示留出位置，放不下时把最后一行末尾的child也隐藏
+     *
+     * @param width  提示包含margin的宽度
+     * @param height 提示包含margin的高度
+     * @return 第一个不显示的child
+     */
+    public int reserveOverflow(int width, int height) {
+        if (mOverflowStart < 0 || mLineCount == 0) {
+            return mOverflowStart;
+        }
+        final int line = mLineCount - 1;
+        final int lineStart = mLineStarts[line];
+        int last = mOverflowStart - 1;
+        while (mLineChildCount > 0 && mLeft + width > mMaxRight) {
+            while (mChildWidths[last] == GONE) {
+                last--;
+            }
+            mLeft = mChildLefts[last] - mChildLeftMargins[last];
+            mOverflowStart = last;
+            mLineChildCount--;
+            last--;
+        }
+        int lineHeight = height;
+        for (int i = lineStart; i < mOverflowStart; i++) {
+            if (mChildWidths[i] != GONE && mChildHeights[i] > lineHeight) {
+                lineHeight = mChildHeights[i];
+            }
+        }
+        mLineHeights[line] = lineHeight;
+        return mOverflowStart;
+    }
+
+    /**
+     * 第一个超出最大行数的child，没有超出时为-1
+     */
+    public int getOverflowStart() {
+        return mOverflowStart;
+    }
+
+    /**
+     * reserveOverflow之后，提示的left（不含margin）
+     */
+    public int getOverflowLeft() {
+        return mLineChildCount == 0 ? mPaddingLeft : mLeft;
+    }
+
+    /**
+     * reserveOverflow之后，提示的top（不含margin）
+     */
+    public int getOverflowTop() {
+        return mLineTops[mLineCount - 1];
+    }
+
+    /**
+     * 完整计算
+     *
+     * @param widths  child的宽度，GONE表示不参与计算
+     * @param heights child的高度
+     * @param margins 每个child依次为left、top、right、bottom，可以为null
+     */
+    public void compute(int count, int[] widths, int[] heights, int[] margins) {
+        ensureChildCapacity(count);
+        begin(0);
+        for (int i = 0; i < count; i++) {
+            if (widths[i] == GONE) {
+                skip(i);
+                continue;
+            }
+            if (margins == null) {
+                add(i, widths[i], heights[i], 0, 0, 0, 0);
+            } else {
+                int m = i * 4;
+                add(i, widths[i], heights[i], margins[m], margins[m + 1], margins[m + 2], margins[m + 3]);
+            }
+        }
+        end();
+    }
+
+    public int getLineCount() {
+        return mLineCount;
+    }
+
+    public int getLineStart(int line) {
+        return mLineStarts[line];
+    }
+
+    public int getLineTop(int line) {
+        return mLineTops[line];
+    }
+
+    public int getLineHeight(int line) {
+        return mLineHeights[line];
+    }
+
+    public int getChildLeft(int index) {
+        return mChildLefts[index];
+    }
+
+    public int getChildTop(int index) {
+        return mChildTops[index];
+    }
+
+    /**
+     * child包含margin的宽度，被跳过的child为GONE
+     */
+    public int getChildWidth(int index) {
+        return mChildWidths[index];
+    }
+
+    /**
+     * child包含margin的高度
+     */
+    public int getChildHeight(int index) {
+        return mChildHeights[index];
+    }
+
+    /**
+     * 已经计算到的child个数，包括被跳过的child
+     */
+    public int getChildEnd() {
+        return mChildEnd;
+    }
+
+    /**
+     * 最后一行的底部，没有行时为paddingTop
+     */
+    public int getContentBottom() {
+        if (mLineCount == 0) {
+            return mPaddingTop;
+        }
+        return mLineTops[mLineCount - 1] + mLineHeights[mLineCount - 1];
+    }
+
+    /**
+     * 是否已经有一行从bottom或者更下面开始。逐个添加child时，最后一行可能还没有放完，
+     * 只有它之后又开始了新的一行，它才是完整的；所以bottom以上的行都完整，需要最后一行的顶部不在bottom之上
+     */
+    public boolean isFilledTo(int bottom) {
+        return mLineCount > 0 && mLineTops[mLineCount - 1] >= bottom;
+    }
+
+    /**
+     * 所有显示的child（包含margin）最右边的位置，没有child时为paddingLeft；用于wrap_content的宽度
+     */
+    public int getContentRight() {
+        int right = mPaddingLeft;
+        for (int i = 0, end = visibleEnd(); i < end; i++) {
+            if (mChildWidths[i] != GONE) {
+                right = Math.max(right, mChildLefts[i] - mChildLeftMargins[i] + mChildWidths[i]);
+            }
+        }
+        return right;
+    }
+
+    /**
+     * 最宽的一个显示的child（包含margin），即不超出边界时内容区域最小的宽度
+     */
+    public int getMinContentWidth() {
+        int width = 0;
+        for (int i = 0, end = visibleEnd(); i < end; i++) {
+            width = Math.max(width, mChildWidths[i]);
+        }
+        return width;
+    }
+
+    /**
+     * 所有显示的child排成一行时内容区域的宽度，即不换行需要的宽度
+     */
+    public int getMaxContentWidth() {
+        int width = 0;
+        int count = 0;
+        for (int i = 0, end = visibleEnd(); i < end; i++) {
+            if (mChildWidths[i] != GONE) {
+                width += mChildWidths[i];
+                count++;
+            }
+        }
+        return count == 0 ? 0 : width + (count - 1) * mSpaceH;
+    }
+
+    private int visibleEnd() {
+        return mOverflowStart >= 0 ? mOverflowStart : mChildEnd;
+    }
+
+    /**
+     * child所在的行，二分查找
+     */
+    public int lineOf(int index) {
+        int low = 0;
+        int high = mLineCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (mLineStarts[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 坐标所在的child，先按top二分查找行，再在行内按left二分查找，包含margin，不在任何child上时返回-1
+     */
+    public int childIndexAt(int x, int y) {
+        if (mLineCount == 0 || y < mLineTops[0]) {
+            return -1;
+        }
+        int line = getLineForVertical(y);
+        if (y >= mLineTops[line] + mLineHeights[line]) {
+            return -1;
+        }
+        int start = mLineStarts[line];
+        int end = line + 1 < mLineCount ? mLineStarts[line + 1] : mChildEnd;
+        if (mOverflowStart >= 0 && end > mOverflowStart) {
+            end = mOverflowStart;
+        }
+        //最后一个left不大于x的child
+        int low = start;
+        int high = end - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (mChildLefts[mid] <= x) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        int index = low;
+        while (index >= start && mChildWidths[index] == GONE) {
+            index--;
+        }
+        if (index < start) {
+            return -1;
+        }
+        int outerLeft = mChildLefts[index] - mChildLeftMargins[index];
+        if (x < outerLeft || x >= outerLeft + mChildWidths[index]) {
+            return -1;
+        }
+        return index;
+    }
+
+    /**
+     * 最后一个top不大于y的行，y在第一行之上时返回0
+     */
+    public int getLineForVertical(int y) {
+        int low = 0;
+        int high = mLineCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (mLineTops[mid] <= y) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 把child的top换成topMargin，重新排列行之后再加上新的行top
+     */
+    private void toTopMargins() {
+        for (int line = 0; line < mLineCount; line++) {
+            final int end = line + 1 < mLineCount ? mLineStarts[line + 1] : mChildEnd;
+            for (int i = mLineStarts[line]; i < end; i++) {
+                if (mChildWidths[i] != GONE) {
+                    mChildTops[i] -= mLineTops[line];
+                }
+            }
+        }
+    }
+
+    /**
+     * 行数不超过贪心换行的前提下，使各行剩余宽度的平方和最小；
+     * 每行最多考虑BALANCE_WINDOW个child，结果按可用宽度和child宽度缓存
+     */
+    private void balance() {
+        int count = 0;
+        if (mVisible.length < mChildEnd) {
+            mVisible = new int[mChildEnd];
+        }
+        for (int i = 0; i < mChildEnd; i++) {
+            if (mChildWidths[i] != GONE) {
+                mVisible[count++] = i;
+            }
+        }
+        final int available = mMaxRight - mPaddingLeft;
+        BalanceResult result = findBalanceResult(available, count);
+        if (result == null) {
+            result = obtainBalanceResult(available, count);
+            computeBalance(result, available, count);
+        }
+        //窗口限制导致行数比贪心换行多时，保留贪心换行的结果
+        if (result.lineCount > mLineCount) {
+            return;
+        }
+        mLineCount = 0;
+        for (int line = 0; line < result.lineCount; line++) {
+            addLine(mVisible[result.starts[line]], 0);
+        }
+    }
+
+    private BalanceResult findBalanceResult(int available, int count) {
+        for (int n = 0; n < BALANCE_CACHE_SIZE; n++) {
+            BalanceResult result = mBalanceCache[n];
+            if (result == null || result.available != available || result.spaceH != mSpaceH || result.count != count) {
+                continue;
+            }
+            boolean same = true;
+            for (int v = 0; v < count; v++) {
+                if (result.widths[v] != mChildWidths[mVisible[v]]) {
+                    same = false;
+                    break;
+                }
+            }
+            if (same) {
+                System.arraycopy(mBalanceCache, 0, mBalanceCache, 1, n);
+                mBalanceCache[0] = result;
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 复用最久没有使用的结果
+     */
+    private BalanceResult obtainBalanceResult(int available, int count) {
+        BalanceResult result = mBalanceCache[BALANCE_CACHE_SIZE - 1];
+        if (result == null) {
+            result = new BalanceResult();
+        }
+        System.arraycopy(mBalanceCache, 0, mBalanceCache, 1, BALANCE_CACHE_SIZE - 1);
+        mBalanceCache[0] = result;
+        result.available = available;
+        result.spaceH = mSpaceH;
+        result.count = count;
+        if (result.widths.length < count) {
+            result.widths = new int[count];
+        }
+        for (int v = 0; v < count; v++) {
+            result.widths[v] = mChildWidths[mVisible[v]];
+        }
+        return result;
+    }
+
+    /**
+     * costs[j]为前j个可见child的最小代价，每多一行的代价大于任何剩余宽度的平方和，所以先保证行数最少
+     */
+    private void computeBalance(BalanceResult result, int available, int count) {
+        if (mBreakCosts.length < count + 1) {
+            mBreakCosts = new long[count + 1];
+            mBreakStarts = new int[count + 1];
+        }
+        final long[] costs = mBreakCosts;
+        final int[] starts = mBreakStarts;
+        final int[] widths = result.widths;
+        final long linePenalty = (long) available * available * (count + 1) + 1;
+        costs[0] = 0;
+        for (int j = 1; j <= count; j++) {
+            costs[j] = Long.MAX_VALUE;
+            int width = -mSpaceH;
+            for (int i = j - 1; i >= 0 && i >= j - BALANCE_WINDOW; i--) {
+                width += widths[i] + mSpaceH;
+                //一行只有一个child时，即使超出宽度也只能放在这一行
+                if (width > available && i < j - 1) {
+                    break;
+                }
+                long slack = Math.max(0, available - width);
+                long cost = costs[i] + linePenalty + slack * slack;
+                if (cost < costs[j]) {
+                    costs[j] = cost;
+                    starts[j] = i;
+                }
+            }
+        }
+        int lineCount = 0;
+        for (int j = count; j > 0; j = starts[j]) {
+            lineCount++;
+        }
+        if (result.starts.length < lineCount) {
+            result.starts = new int[lineCount];
+        }
+        result.lineCount = lineCount;
+        int line = lineCount;
+        for (int j = count; j > 0; j = starts[j]) {
+            result.starts[--line] = starts[j];
+        }
+    }
+
+    /**
+     * 按当前的行首重新计算每行的高度、top和child的位置，此时child的top为topMargin
+     *
+     * @param justify 是否把每行（最后一行除外）剩余的宽度平均分到间隙中
+     */
+    private void relayout(boolean justify) {
+        final int available = mMaxRight - mPaddingLeft;
+        int top = mPaddingTop;
+        for (int line = 0; line < mLineCount; line++) {
+            final int start = mLineStarts[line];
+            final int end = line + 1 < mLineCount ? mLineStarts[line + 1] : mChildEnd;
+            int height = 0;
+            int count = 0;
+            int width = -mSpaceH;
+            for (int i = start; i < end; i++) {
+                if (mChildWidths[i] != GONE) {
+                    height = Math.max(height, mChildHeights[i]);
+                    width += mChildWidths[i] + mSpaceH;
+                    count++;
+                }
+            }
+            final int extra = justify && line < mLineCount - 1 && count > 1 ? Math.max(0, available - width) : 0;
+            int left = mPaddingLeft;
+            int offset = 0;
+            int n = 0;
+            for (int i = start; i < end; i++) {
+                if (mChildWidths[i] == GONE) {
+                    //与前一个可见child的偏移相同，行内的left保持递增
+                    mChildLefts[i] = n > 0 ? left + offset : Integer.MAX_VALUE;
+                    continue;
+                }
+                //第n个child之前的间隙一共分到extra * n / (count - 1)
+                offset = extra == 0 ? 0 : (int) ((long) extra * n / (count - 1));
+                mChildLefts[i] = left + offset + mChildLeftMargins[i];
+                mChildTops[i] += top;
+                left += mChildWidths[i] + mSpaceH;
+                n++;
+            }
+            mLineTops[line] = top;
+            mLineHeights[line] = height;
+            mTop = top;
+            mLeft = left;
+            mLineChildCount = n;
+            top += height + mSpaceV;
+        }
+    }
+
+    private void addLine(int start, int top) {
+        if (mLineCount == mLineStarts.length) {
+            int capacity = Math.max(4, mLineCount * 2);
+            mLineStarts = Arrays.copyOf(mLineStarts, capacity);
+            mLineTops = Arrays.copyOf(mLineTops, capacity);
+            mLineHeights = Arrays.copyOf(mLineHeights, capacity);
+        }
+        mLineStarts[mLineCount] = start;
+        mLineTops[mLineCount] = top;
+        mLineHeights[mLineCount] = 0;
+        mLineCount++;
+    }
+
+    /**
+     * 一次均衡换行的输入和结果：可见child的宽度、每行第一个child在可见child中的序号
+     */
+    private static final class BalanceResult {
+        int available;
+        int spaceH;
+        int count;
+        int[] widths = new int[0];
+        int lineCount;
+        int[] starts = new int[0];
+    }
+
+}
@@ -0,0 +1,215 @@
+package com.warm.flowlayout.engine;
+
+/**
+ * 作者：warm
+ * 时间：2026-10-18
+ * 描述：按child个数排列的宫格模板，比如九宫格、2+3、大图+缩略图。
+ * 子类只需要实现{@link #onComputeCells}，结果按(count, width, spaceH, spaceV)缓存，
+ * 同一个模板可以被多个FlowLayout共享，列表滚动时重新布局只是一次查表。
+ */
+public abstract class GridTemplate {
+
+    private static final int CACHE_SIZE = 8;
+
+    private static GridTemplate sNine;
+
+    /**
+     * 最近使用的结果，下标0最新
+     */
+    private final Cells[] mCache = new Cells[CACHE_SIZE];
+
+    /**
+     * 九宫格：1张时占满一行、高度为宽度的一半；2张、4张时2列；其余3列；格子为正方形
+     */
+    public static GridTemplate nine() {
+        if (sNine == null) {
+            sNine = new GridTemplate() {
+                @Override
+                protected int onComputeCells(int count, int width, int spaceH, int spaceV, int[] cells) {
+                    if (count == 1) {
+                        setCell(cells, 0, 0, 0, width, width / 2);
+                        return width / 2;
+                    }
+                    int columns = nineColumns(count);
+                    return fillRows(cells, 0, count, columns, 0, width, spaceH, spaceV);
+                }
+            };
+        }
+        return sNine;
+    }
+
+    /**
+     * 九宫格模式下，根据child个数决定列数
+     */
+    public static int nineColumns(int count) {
+        switch (count) {
+            case 1:
+                return 1;
+            case 2:
+            case 4:
+                return 2;
+            default:
+                return 3;
+        }
+    }
+
+    /**
+     * 按行指定列数，比如rows(2, 3)为第一行2个、第二行3个，之后的行沿用最后一个列数；格子为正方形
+     */
+    public static GridTemplate rows(final int... columnsPerRow) {
+        if (columnsPerRow.length == 0) {
+            throw new IllegalArgumentException("columnsPerRow is empty");
+        }
+        return new GridTemplate() {
+            @Override
+            protected int onComputeCells(int count, int width, int spaceH, int spaceV, int[] cells) {
+                int index = 0;
+                int top = 0;
+                for (int row = 0; index < count; row++) {
+                    int columns = columnsPerRow[Math.min(row, columnsPerRow.length - 1)];
+                    int n = Math.min(columns, count - index);
+                    int bottom = fillRows(cells, index, n, columns, top, width, spaceH, spaceV);
+                    index += n;
+                    top = bottom + spaceV;
+                }
+                return count == 0 ? 0 : top - spaceV;
+            }
+        };
+    }
+
+    /**
+     * 第一个child占满一行、高度为宽度的一半，其余按columns列排列；格子为正方形
+     */
+    public static GridTemplate hero(final int columns) {
+        return new GridTemplate() {
+            @Override
+            protected int onComputeCells(int count, int width, int spaceH, int spaceV, int[] cells) {
+                if (count == 0) {
+                    return 0;
+                }
+                setCell(cells, 0, 0, 0, width, width / 2);
+                if (count == 1) {
+                    return width / 2;
+                }
+                return fillRows(cells, 1, count - 1, columns, width / 2 + spaceV, width, spaceH, spaceV);
+            }
+        };
+    }
+
+    /**
+     * 计算count个格子的位置
+     *
+     * @param width 内容区域的宽度，不含padding
+     * @param cells 依次写入每个格子的left、top、right、bottom，相对内容区域左上角
+     * @return 内容区域的高度
+     */
+    protected abstract int onComputeCells(int count, int width, int spaceH, int spaceV, int[] cells);
+
+    /**
+     * 获取count个格子的位置，相同参数直接返回缓存的结果
+     */
+    public final Cells getCells(int count, int width, int spaceH, int spaceV) {
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            Cells cells = mCache[i];
+            if (cells != null && cells.mCount == count && cells.mWidth == width
+                    && cells.mSpaceH == spaceH && cells.mSpaceV == spaceV) {
+                moveToFront(i);
+                return cells;
+            }
+        }
+        Cells cells = new Cells(count, width, spaceH, spaceV);
+        cells.mHeight = onComputeCells(count, width, spaceH, spaceV, cells.mRects);
+        System.arraycopy(mCache, 0, mCache, 1, CACHE_SIZE - 1);
+        mCache[0] = cells;
+        return cells;
+    }
+
+    /**
+     * 模板的排列规则变化时调用
+     */
+    public final void clearCache() {
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            mCache[i] = null;
+        }
+    }
+
+    private void moveToFront(int index) {
+        if (index == 0) {
+            return;
+        }
+        Cells cells = mCache[index];
+        System.arraycopy(mCache, 0, mCache, 1, index);
+        mCache[0] = cells;
+    }
+
+    protected static void setCell(int[] cells, int index, int left, int top, int right, int bottom) {
+        int i = index * 4;
+        cells[i] = left;
+        cells[i + 1] = top;
+        cells[i + 2] = right;
+        cells[i + 3] = bottom;
+    }
+
+    /**
+     * 从start开始的n个格子按columns列排列成正方形，从top开始
+     *
+     * @return 最后一行的bottom
+     */
+    protected static int fillRows(int[] cells, int start, int n, int columns, int top, int width, int spaceH, int spaceV) {
+        int cellWidth = (width - (columns - 1) * spaceH) / columns;
+        int bottom = top;
+        for (int i = 0; i < n; i++) {
+            int left = (i % columns) * (cellWidth + spaceH);
+            int cellTop = top + (i / columns) * (cellWidth + spaceV);
+            setCell(cells, start + i, left, cellTop, left + cellWidth, cellTop + cellWidth);
+            bottom = cellTop + cellWidth;
+        }
+        return bottom;
+    }
+
+    /**
+     * 一组格子的位置，只读
+     */
+    public static final class Cells {
+
+        private final int mCount;
+        private final int mWidth;
+        private final int mSpaceH;
+        private final int mSpaceV;
+        private final int[] mRects;
+        private int mHeight;
+
+        Cells(int count, int width, int spaceH, int spaceV) {
+            mCount = count;
+            mWidth = width;
+            mSpaceH = spaceH;
+            mSpaceV = spaceV;
+            mRects = new int[count * 4];
+        }
+
+        public int getCount() {
+            return mCount;
+        }
+
+        public int getHeight() {
+            return mHeight;
+        }
+
+        public int getLeft(int index) {
+            return mRects[index * 4];
+        }
+
+        public int getTop(int index) {
+            return mRects[index * 4 + 1];
+        }
+
+        public int getRight(int index) {
+            return mRects[index * 4 + 2];
+        }
+
+        public int getBottom(int index) {
+            return mRects[index * 4 + 3];
+        }
+    }
+
+}
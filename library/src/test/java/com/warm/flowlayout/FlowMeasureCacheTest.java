@@ -0,0 +1,111 @@
+package com.warm.flowlayout;
+
+import com.warm.flowlayout.engine.FlowLayoutEngine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * FlowMeasureCache的命中统计和淘汰
+ */
+public class FlowMeasureCacheTest {
+
+    private static final int HEIGHT = 0;
+
+    private static FlowLayoutEngine engineWithLines(int count) {
+        FlowLayoutEngine engine = settings();
+        int[] widths = new int[count];
+        int[] heights = new int[count];
+        for (int i = 0; i < count; i++) {
+            widths[i] = 60;
+            heights[i] = 10;
+        }
+        engine.compute(count, widths, heights, null);
+        return engine;
+    }
+
+    private static FlowLayoutEngine settings() {
+        FlowLayoutEngine engine = new FlowLayoutEngine();
+        engine.setBounds(100, 0, 0, 0);
+        return engine;
+    }
+
+    @Test
+    public void countsHitsAndMisses() {
+        FlowMeasureCache cache = new FlowMeasureCache(4);
+        assertNull(cache.get("tags", 100, HEIGHT, false, settings()));
+        cache.put("tags", 100, HEIGHT, false, engineWithLines(3));
+
+        FlowLayoutEngine cached = cache.get("tags", 100, HEIGHT, false, settings());
+        assertNotNull(cached);
+        assertEquals(3, cached.getLineCount());
+        assertNull(cache.get("tags", 200, HEIGHT, false, settings()));
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        FlowMeasureCache cache = new FlowMeasureCache(2);
+        cache.put("a", 100, HEIGHT, false, engineWithLines(1));
+        cache.put("b", 100, HEIGHT, false, engineWithLines(1));
+        cache.get("a", 100, HEIGHT, false, settings());
+        cache.put("c", 100, HEIGHT, false, engineWithLines(1));
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("a", 100, HEIGHT, false, settings()));
+        assertNull(cache.get("b", 100, HEIGHT, false, settings()));
+    }
+
+    /**
+     * 内容key相同，但高度、统一行高或者engine的设置不同时，不能使用同一个结果
+     */
+    @Test
+    public void missesWhenSettingsDiffer() {
+        FlowMeasureCache cache = new FlowMeasureCache(4);
+        cache.put("tags", 100, HEIGHT, false, engineWithLines(3));
+
+        assertNull(cache.get("tags", 100, 50, false, settings()));
+        assertNull(cache.get("tags", 100, HEIGHT, true, settings()));
+
+        FlowLayoutEngine columns = settings();
+        columns.setColumns(2);
+        assertNull(cache.get("tags", 100, HEIGHT, false, columns));
+
+        FlowLayoutEngine maxLines = settings();
+        maxLines.setMaxLines(1);
+        assertNull(cache.get("tags", 100, HEIGHT, false, maxLines));
+
+        FlowLayoutEngine space = settings();
+        space.setSpace(8, 0);
+        assertNull(cache.get("tags", 100, HEIGHT, false, space));
+
+        FlowLayoutEngine balanced = settings();
+        balanced.setLineBreakStrategy(FlowLayoutEngine.BREAK_BALANCED);
+        assertNull(cache.get("tags", 100, HEIGHT, false, balanced));
+
+        assertNotNull(cache.get("tags", 100, HEIGHT, false, settings()));
+    }
+
+    /**
+     * 容量满之后，淘汰的一项被新结果复用
+     */
+    @Test
+    public void reusesEvictedEntry() {
+        FlowMeasureCache cache = new FlowMeasureCache(1);
+        cache.put("a", 100, HEIGHT, false, engineWithLines(1));
+        FlowLayoutEngine evicted = cache.get("a", 100, HEIGHT, false, settings());
+        cache.put("b", 100, HEIGHT, false, engineWithLines(2));
+
+        FlowLayoutEngine cached = cache.get("b", 100, HEIGHT, false, settings());
+        assertSame(evicted, cached);
+        assertEquals(2, cached.getLineCount());
+        assertNull(cache.get("a", 100, HEIGHT, false, settings()));
+    }
+
+}
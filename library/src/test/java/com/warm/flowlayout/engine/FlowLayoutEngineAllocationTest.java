@@ -0,0 +1,102 @@
+package com.warm.flowlayout.engine;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 测量和布局每帧都可能执行，engine在数组容量足够之后不能再分配任何对象
+ */
+public class FlowLayoutEngineAllocationTest {
+
+    private static final int COUNT = 500;
+    private static final int WARM_UP = 20000;
+    private static final int PASSES = 2000;
+
+    private FlowLayoutEngine engine;
+    private int[] widths;
+    private int[] heights;
+    private int[] margins;
+
+    @Before
+    public void setUp() {
+        engine = new FlowLayoutEngine();
+        engine.setSpace(8, 8);
+        engine.setBounds(1080, 16, 16, 16);
+        widths = new int[COUNT];
+        heights = new int[COUNT];
+        margins = new int[COUNT * 4];
+        for (int i = 0; i < COUNT; i++) {
+            widths[i] = 60 + (i * 37) % 300;
+            heights[i] = 40 + (i % 3) * 10;
+            margins[i * 4] = i % 5;
+            margins[i * 4 + 2] = i % 7;
+        }
+    }
+
+    @Test
+    public void computeDoesNotAllocate() {
+        assertEquals(0, allocatedBytes(new Runnable() {
+            @Override
+            public void run() {
+                engine.compute(COUNT, widths, heights, margins);
+            }
+        }));
+    }
+
+    @Test
+    public void warmBalancedPassDoesNotAllocate() {
+        engine.setLineBreakStrategy(FlowLayoutEngine.BREAK_BALANCED);
+        assertEquals(0, allocatedBytes(new Runnable() {
+            @Override
+            public void run() {
+                engine.compute(COUNT, widths, heights, margins);
+            }
+        }));
+    }
+
+    @Test
+    public void incrementalPassDoesNotAllocate() {
+        engine.compute(COUNT, widths, heights, margins);
+        assertEquals(0, allocatedBytes(new Runnable() {
+            @Override
+            public void run() {
+                int resumeLine = engine.lineOf(COUNT - 1);
+                engine.begin(resumeLine);
+                for (int i = engine.getLineStart(resumeLine); i < COUNT; i++) {
+                    engine.add(i, widths[i], heights[i], 0, 0, 0, 0);
+                }
+            }
+        }));
+    }
+
+    /**
+     * 预热之后执行PASSES次，返回分配的字节数
+     */
+    private static long allocatedBytes(Runnable pass) {
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadBean;
+        Assume.assumeTrue(bean.isThreadAllocatedMemorySupported());
+        bean.setThreadAllocatedMemoryEnabled(true);
+
+        for (int i = 0; i < WARM_UP; i++) {
+            pass.run();
+        }
+        long id = Thread.currentThread().getId();
+        //统计本身的开销
+        long start = bean.getThreadAllocatedBytes(id);
+        long overhead = bean.getThreadAllocatedBytes(id) - start;
+
+        start = bean.getThreadAllocatedBytes(id);
+        for (int i = 0; i < PASSES; i++) {
+            pass.run();
+        }
+        return bean.getThreadAllocatedBytes(id) - start - overhead;
+    }
+
+}
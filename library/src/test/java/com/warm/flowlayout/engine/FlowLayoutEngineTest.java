@@ -0,0 +1,288 @@
+package com.warm.flowlayout.engine;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * FlowLayoutEngine的换行规则，直接在JVM上运行
+ */
+public class FlowLayoutEngineTest {
+
+    private FlowLayoutEngine engine;
+
+    @Before
+    public void setUp() {
+        engine = new FlowLayoutEngine();
+        engine.setSpace(10, 5);
+        engine.setBounds(100, 0, 0, 0);
+    }
+
+    @Test
+    public void wrapsWhenChildDoesNotFit() {
+        int[] widths = {40, 40, 40};
+        int[] heights = {20, 30, 20};
+        engine.compute(3, widths, heights, null);
+
+        assertEquals(2, engine.getLineCount());
+        assertEquals(0, engine.getChildLeft(0));
+        assertEquals(50, engine.getChildLeft(1));
+        assertEquals(0, engine.getChildLeft(2));
+        assertEquals(30, engine.getLineHeight(0));
+        assertEquals(35, engine.getChildTop(2));
+        assertEquals(55, engine.getContentBottom());
+    }
+
+    @Test
+    public void wrappedChildDoesNotGrowPreviousLine() {
+        int[] widths = {60, 60};
+        int[] heights = {20, 50};
+        engine.compute(2, widths, heights, null);
+
+        assertEquals(20, engine.getLineHeight(0));
+        assertEquals(50, engine.getLineHeight(1));
+        assertEquals(25, engine.getLineTop(1));
+    }
+
+    @Test
+    public void tooWideChildKeepsItsOwnLine() {
+        int[] widths = {150, 20};
+        int[] heights = {10, 10};
+        engine.compute(2, widths, heights, null);
+
+        assertEquals(2, engine.getLineCount());
+        assertEquals(0, engine.getLineStart(0));
+        assertEquals(1, engine.getLineStart(1));
+    }
+
+    @Test
+    public void marginsAndPaddingAreApplied() {
+        engine.setBounds(100, 8, 4, 8);
+        int[] widths = {30, 30, 30};
+        int[] heights = {10, 10, 10};
+        int[] margins = {2, 3, 2, 1, 0, 0, 0, 0, 0, 0, 0, 0};
+        engine.compute(3, widths, heights, margins);
+
+        assertEquals(10, engine.getChildLeft(0));
+        assertEquals(7, engine.getChildTop(0));
+        assertEquals(52, engine.getChildLeft(1));
+        assertEquals(14, engine.getLineHeight(0));
+        assertEquals(1, engine.lineOf(2));
+    }
+
+    @Test
+    public void goneChildrenAreSkipped() {
+        int[] widths = {40, FlowLayoutEngine.GONE, 40};
+        int[] heights = {10, 10, 10};
+        engine.compute(3, widths, heights, null);
+
+        assertEquals(1, engine.getLineCount());
+        assertEquals(50, engine.getChildLeft(2));
+    }
+
+    @Test
+    public void resumeKeepsEarlierLines() {
+        int[] widths = {60, 60, 60};
+        int[] heights = {10, 10, 10};
+        engine.compute(3, widths, heights, null);
+        assertEquals(3, engine.getLineCount());
+
+        int line = engine.lineOf(1);
+        engine.begin(line);
+        engine.add(1, 20, 10, 0, 0, 0, 0);
+        engine.add(2, 20, 10, 0, 0, 0, 0);
+
+        assertEquals(2, engine.getLineCount());
+        assertEquals(15, engine.getChildTop(1));
+        assertEquals(30, engine.getChildLeft(2));
+    }
+
+    @Test
+    public void fillingToViewportCompletesLastVisibleLine() {
+        //每行放3个，行顶部依次为0、25、50、75，和bottom相交的是第三行
+        int itemCount = fillTo(60, 25, 20, 12);
+        assertEquals(4, engine.getLineCount());
+        assertEquals(3, engine.getLineStart(3) - engine.getLineStart(2));
+        assertEquals(10, itemCount);
+
+        engine.setColumns(4);
+        itemCount = fillTo(60, 20, 20, 20);
+        assertEquals(4, engine.getLineCount());
+        assertEquals(4, engine.getLineStart(3) - engine.getLineStart(2));
+        assertEquals(13, itemCount);
+    }
+
+    /**
+     * 和FlowLayoutManager一样逐行添加：每次添加到有child换到新的一行，直到isFilledTo(bottom)
+     *
+     * @return 添加的child个数
+     */
+    private int fillTo(int bottom, int width, int height, int count) {
+        engine.ensureChildCapacity(count);
+        engine.begin(0);
+        int added = 0;
+        while (!engine.isFilledTo(bottom) && added < count) {
+            int target = Math.max(engine.getLineCount(), 1) + 1;
+            while (added < count && engine.getLineCount() < target) {
+                engine.add(added, width, height, 0, 0, 0, 0);
+                added++;
+            }
+        }
+        return added;
+    }
+
+    @Test
+    public void maxLinesStopsAtFirstOverflowingChild() {
+        engine.setMaxLines(1);
+        int[] widths = {40, 40, 40, 10};
+        int[] heights = {10, 10, 10, 10};
+        engine.compute(4, widths, heights, null);
+
+        assertEquals(1, engine.getLineCount());
+        assertEquals(2, engine.getOverflowStart());
+        assertEquals(10, engine.getContentBottom());
+    }
+
+    @Test
+    public void reserveOverflowHidesTailOfLastLine() {
+        engine.setMaxLines(1);
+        int[] widths = {40, FlowLayoutEngine.GONE, 40, 40};
+        int[] heights = {10, 10, 10, 10};
+        engine.compute(4, widths, heights, null);
+        assertEquals(3, engine.getOverflowStart());
+
+        assertEquals(2, engine.reserveOverflow(30, 16));
+        assertEquals(50, engine.getOverflowLeft());
+        assertEquals(0, engine.getOverflowTop());
+        assertEquals(16, engine.getLineHeight(0));
+    }
+
+    @Test
+    public void childIndexAtFindsChildByCoordinate() {
+        int[] widths = {40, FlowLayoutEngine.GONE, 40, 40, FlowLayoutEngine.GONE};
+        int[] heights = {20, 10, 10, 10, 10};
+        engine.compute(5, widths, heights, null);
+
+        assertEquals(0, engine.childIndexAt(0, 0));
+        assertEquals(0, engine.childIndexAt(39, 19));
+        assertEquals(-1, engine.childIndexAt(45, 5));
+        assertEquals(2, engine.childIndexAt(50, 15));
+        assertEquals(-1, engine.childIndexAt(95, 5));
+        assertEquals(-1, engine.childIndexAt(10, 22));
+        assertEquals(3, engine.childIndexAt(10, 25));
+        assertEquals(-1, engine.childIndexAt(10, 35));
+    }
+
+    @Test
+    public void columnsPlaceChildrenByIndex() {
+        engine.setColumns(3);
+        int[] widths = {20, FlowLayoutEngine.GONE, 10, 26, 5};
+        int[] heights = {10, 10, 20, 10, 10};
+        engine.compute(5, widths, heights, null);
+
+        assertEquals(26, engine.getCellWidth());
+        assertEquals(2, engine.getLineCount());
+        assertEquals(36, engine.getChildLeft(2));
+        assertEquals(72, engine.getChildLeft(3));
+        assertEquals(0, engine.getChildLeft(4));
+        assertEquals(25, engine.getChildTop(4));
+        assertEquals(4, engine.getLineStart(1));
+    }
+
+    @Test
+    public void copyFromKeepsLinesAndChildren() {
+        int[] widths = {40, FlowLayoutEngine.GONE, 40, 40};
+        int[] heights = {10, 10, 20, 10};
+        engine.compute(4, widths, heights, null);
+
+        FlowLayoutEngine copy = new FlowLayoutEngine();
+        copy.copyFrom(engine);
+
+        assertEquals(2, copy.getLineCount());
+        assertEquals(3, copy.getLineStart(1));
+        assertEquals(50, copy.getChildLeft(2));
+        assertEquals(FlowLayoutEngine.GONE, copy.getChildWidth(1));
+        assertEquals(4, copy.getChildEnd());
+        assertEquals(engine.getContentBottom(), copy.getContentBottom());
+    }
+
+    @Test
+    public void justifiedSpreadsLeftoverExceptLastLine() {
+        int[] widths = {30, 30, 50};
+        int[] heights = {10, 20, 10};
+        engine.setLineBreakStrategy(FlowLayoutEngine.BREAK_JUSTIFIED);
+        engine.compute(3, widths, heights, null);
+
+        assertEquals(2, engine.getLineCount());
+        assertEquals(0, engine.getChildLeft(0));
+        assertEquals(70, engine.getChildLeft(1));
+        assertEquals(0, engine.getChildLeft(2));
+        assertEquals(25, engine.getChildTop(2));
+    }
+
+    @Test
+    public void justifiedGoneChildFollowsPreviousOffset() {
+        int[] widths = {10, 10, FlowLayoutEngine.GONE, 10, 90};
+        int[] heights = {10, 10, 10, 10, 10};
+        engine.setLineBreakStrategy(FlowLayoutEngine.BREAK_JUSTIFIED);
+        engine.compute(5, widths, heights, null);
+
+        //第一行多出50，第二个child右移25，GONE的child跟着右移
+        assertEquals(45, engine.getChildLeft(1));
+        assertEquals(65, engine.getChildLeft(2));
+        assertEquals(90, engine.getChildLeft(3));
+        assertEquals(1, engine.childIndexAt(50, 5));
+        assertEquals(3, engine.childIndexAt(95, 5));
+    }
+
+    @Test
+    public void balancedKeepsLineCountAndEvensRows() {
+        int[] widths = {20, 20, 20, 20, 20};
+        int[] heights = {10, 10, 10, 10, 10};
+        engine.setBounds(110, 0, 0, 0);
+        engine.setLineBreakStrategy(FlowLayoutEngine.BREAK_BALANCED);
+        engine.compute(5, widths, heights, null);
+
+        assertEquals(2, engine.getLineCount());
+        assertEquals(3, engine.getLineStart(1));
+        assertEquals(0, engine.getChildLeft(3));
+        assertEquals(30, engine.getChildLeft(4));
+        assertEquals(15, engine.getChildTop(4));
+        assertEquals(25, engine.getContentBottom());
+    }
+
+    @Test
+    public void balancedResultFollowsWidthAndChildren() {
+        int[] widths = {20, 20, 20, 20, 20};
+        int[] heights = {10, 10, 10, 10, 10};
+        engine.setLineBreakStrategy(FlowLayoutEngine.BREAK_BALANCED);
+        engine.setBounds(110, 0, 0, 0);
+        engine.compute(5, widths, heights, null);
+        engine.setBounds(200, 0, 0, 0);
+        engine.compute(5, widths, heights, null);
+        assertEquals(1, engine.getLineCount());
+
+        engine.setBounds(110, 0, 0, 0);
+        engine.compute(5, widths, heights, null);
+        assertEquals(3, engine.getLineStart(1));
+
+        widths[4] = 110;
+        engine.compute(5, widths, heights, null);
+        assertEquals(4, engine.getLineStart(1));
+    }
+
+    @Test
+    public void contentWidthsIgnoreGoneChildren() {
+        int[] widths = {40, FlowLayoutEngine.GONE, 30, 70};
+        int[] heights = {10, 10, 10, 10};
+        engine.setBounds(100, 5, 0, 0);
+        engine.compute(4, widths, heights, null);
+
+        assertEquals(2, engine.getLineCount());
+        assertEquals(85, engine.getContentRight());
+        assertEquals(70, engine.getMinContentWidth());
+        assertEquals(160, engine.getMaxContentWidth());
+    }
+
+}
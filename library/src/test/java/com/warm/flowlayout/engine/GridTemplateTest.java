@@ -0,0 +1,62 @@
+package com.warm.flowlayout.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * 内置宫格模板的格子和缓存
+ */
+public class GridTemplateTest {
+
+    @Test
+    public void nineUsesHalfHeightForSingleChild() {
+        GridTemplate.Cells cells = GridTemplate.nine().getCells(1, 300, 10, 10);
+
+        assertEquals(300, cells.getRight(0));
+        assertEquals(150, cells.getBottom(0));
+        assertEquals(150, cells.getHeight());
+    }
+
+    @Test
+    public void nineUsesTwoColumnsForFourChildren() {
+        GridTemplate.Cells cells = GridTemplate.nine().getCells(4, 210, 10, 10);
+
+        assertEquals(110, cells.getLeft(1));
+        assertEquals(110, cells.getTop(2));
+        assertEquals(210, cells.getHeight());
+    }
+
+    @Test
+    public void rowsRepeatLastColumnCount() {
+        GridTemplate template = GridTemplate.rows(2, 3);
+        GridTemplate.Cells cells = template.getCells(6, 320, 10, 10);
+
+        assertEquals(155, cells.getRight(0));
+        assertEquals(165, cells.getTop(2));
+        assertEquals(100, cells.getRight(2));
+        assertEquals(275, cells.getTop(5));
+        assertEquals(375, cells.getHeight());
+    }
+
+    @Test
+    public void heroSpansFirstRow() {
+        GridTemplate.Cells cells = GridTemplate.hero(2).getCells(3, 210, 10, 10);
+
+        assertEquals(105, cells.getBottom(0));
+        assertEquals(115, cells.getTop(1));
+        assertEquals(110, cells.getLeft(2));
+        assertEquals(215, cells.getHeight());
+    }
+
+    @Test
+    public void cellsAreCachedPerCountAndWidth() {
+        GridTemplate template = GridTemplate.rows(3);
+        GridTemplate.Cells cells = template.getCells(5, 300, 0, 0);
+        template.getCells(5, 400, 0, 0);
+
+        assertSame(cells, template.getCells(5, 300, 0, 0));
+    }
+
+}